@@ -39,6 +39,9 @@ public class MeasurementConverter {
     if (json.getValue("mainPollutant") instanceof String) {
       obj.setMainPollutant((String)json.getValue("mainPollutant"));
     }
+    if (json.getValue("staleness") instanceof Number) {
+      obj.setStaleness(((Number)json.getValue("staleness")).longValue());
+    }
     if (json.getValue("time") instanceof Number) {
       obj.setTime(((Number)json.getValue("time")).longValue());
     }
@@ -63,6 +66,7 @@ public class MeasurementConverter {
     if (obj.getMainPollutant() != null) {
       json.put("mainPollutant", obj.getMainPollutant());
     }
+    json.put("staleness", obj.getStaleness());
     json.put("time", obj.getTime());
     if (obj.getValues() != null) {
       JsonObject map = new JsonObject();
@@ -64,6 +64,46 @@ public class MeasurementServiceVertxEBProxy implements MeasurementService {
     } catch (IllegalStateException ex) {}
   }
 
+  public void getForecast(double latitude, double longitude, long time, Handler<AsyncResult<Measurement>> handler) {
+    if (closed) {
+      handler.handle(Future.failedFuture(new IllegalStateException("Proxy is closed")));
+      return;
+    }
+    JsonObject _json = new JsonObject();
+    _json.put("latitude", latitude);
+    _json.put("longitude", longitude);
+    _json.put("time", time);
+    DeliveryOptions _deliveryOptions = (_options != null) ? new DeliveryOptions(_options) : new DeliveryOptions();
+    _deliveryOptions.addHeader("action", "getForecast");
+    _vertx.eventBus().<JsonObject>send(_address, _json, _deliveryOptions, res -> {
+      if (res.failed()) {
+        handler.handle(Future.failedFuture(res.cause()));
+      } else {
+        handler.handle(Future.succeededFuture(res.result().body() == null ? null : new Measurement(res.result().body())));
+                      }
+    });
+  }
+
+  public void getHistoricalMeasurement(double latitude, double longitude, long time, Handler<AsyncResult<Measurement>> handler) {
+    if (closed) {
+      handler.handle(Future.failedFuture(new IllegalStateException("Proxy is closed")));
+      return;
+    }
+    JsonObject _json = new JsonObject();
+    _json.put("latitude", latitude);
+    _json.put("longitude", longitude);
+    _json.put("time", time);
+    DeliveryOptions _deliveryOptions = (_options != null) ? new DeliveryOptions(_options) : new DeliveryOptions();
+    _deliveryOptions.addHeader("action", "getHistoricalMeasurement");
+    _vertx.eventBus().<JsonObject>send(_address, _json, _deliveryOptions, res -> {
+      if (res.failed()) {
+        handler.handle(Future.failedFuture(res.cause()));
+      } else {
+        handler.handle(Future.succeededFuture(res.result().body() == null ? null : new Measurement(res.result().body())));
+                      }
+    });
+  }
+
   public void getMeasurement(double latitude, double longitude, Handler<AsyncResult<Measurement>> handler) {
     if (closed) {
       handler.handle(Future.failedFuture(new IllegalStateException("Proxy is closed")));
@@ -29,6 +29,7 @@ import com.github.ithildir.airbot.server.api.ai.GetAirQualityApiAiFulfillmentBui
 import com.github.ithildir.airbot.service.GeoService;
 import com.github.ithildir.airbot.service.MeasurementService;
 import com.github.ithildir.airbot.service.UserService;
+import com.github.ithildir.airbot.util.CountryResolver;
 
 import io.vertx.config.ConfigRetriever;
 import io.vertx.core.AbstractVerticle;
@@ -44,6 +45,9 @@ import io.vertx.ext.web.Router;
 import io.vertx.ext.web.handler.BasicAuthHandler;
 import io.vertx.ext.web.handler.BodyHandler;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -59,8 +63,13 @@ public class AirBotVerticle extends AbstractVerticle {
 		Future<JsonObject> configFuture = ConfigRetriever.getConfigAsFuture(
 			configRetriever);
 
-		Future<HttpServer> httpServerFuture = configFuture.compose(
-			this::_startHttpServer);
+		CompositeFuture dependenciesCompositeFuture = CompositeFuture.all(
+			configFuture, _loadCountryResolver());
+
+		Future<HttpServer> httpServerFuture =
+			dependenciesCompositeFuture.compose(
+				dependencies -> _startHttpServer(
+					dependencies.resultAt(0), dependencies.resultAt(1)));
 
 		CompositeFuture compositeFuture = CompositeFuture.all(
 			_deployVerticle(AirNowMeasurementServiceVerticle.class),
@@ -81,7 +90,9 @@ public class AirBotVerticle extends AbstractVerticle {
 			});
 	}
 
-	private void _addHttpRouteApiAi(Router router) {
+	private void _addHttpRouteApiAi(
+		Router router, CountryResolver countryResolver) {
+
 		Route route = router.route(HttpMethod.POST, "/apiai");
 
 		route.consumes("application/json");
@@ -104,7 +115,8 @@ public class AirBotVerticle extends AbstractVerticle {
 		route.handler(
 			new ApiAiHandler(
 				new GetAirQualityApiAiFulfillmentBuilder(
-					geoService, measurementServices, userService)));
+					countryResolver, geoService, measurementServices,
+					userService)));
 	}
 
 	private Future<String> _deployVerticle(Class<? extends Verticle> clazz) {
@@ -115,7 +127,38 @@ public class AirBotVerticle extends AbstractVerticle {
 		return future;
 	}
 
-	private Future<HttpServer> _startHttpServer(JsonObject configJsonObject) {
+	private Future<CountryResolver> _loadCountryResolver() {
+		Future<CountryResolver> future = Future.future();
+
+		vertx.<CountryResolver>executeBlocking(
+			blockingFuture -> {
+				ClassLoader classLoader = AirBotVerticle.class.getClassLoader();
+
+				try (InputStream inputStream = classLoader.getResourceAsStream(
+						_COUNTRIES_RESOURCE_NAME)) {
+
+					if (inputStream == null) {
+						throw new IOException(
+							"Unable to find " + _COUNTRIES_RESOURCE_NAME);
+					}
+
+					CountryResolver countryResolver = CountryResolver.read(
+						inputStream, _COUNTRY_RESOLVER_CELL_SIZE);
+
+					blockingFuture.complete(countryResolver);
+				}
+				catch (IOException ioe) {
+					blockingFuture.fail(ioe);
+				}
+			},
+			future);
+
+		return future;
+	}
+
+	private Future<HttpServer> _startHttpServer(
+		JsonObject configJsonObject, CountryResolver countryResolver) {
+
 		Future<HttpServer> future = Future.future();
 
 		HttpServer httpServer = vertx.createHttpServer();
@@ -136,7 +179,7 @@ public class AirBotVerticle extends AbstractVerticle {
 
 		bodyHandlerRoute.handler(BodyHandler.create());
 
-		_addHttpRouteApiAi(router);
+		_addHttpRouteApiAi(router, countryResolver);
 
 		httpServer.requestHandler(router::accept);
 
@@ -147,6 +190,10 @@ public class AirBotVerticle extends AbstractVerticle {
 		return future;
 	}
 
+	private static final String _COUNTRIES_RESOURCE_NAME = "geo/countries.txt";
+
+	private static final double _COUNTRY_RESOLVER_CELL_SIZE = 0.25;
+
 	private static final int _DEFAULT_PORT = 8080;
 
 	private static final String[] _MEASUREMENT_SERVICE_COUNTRIES = {"US"};
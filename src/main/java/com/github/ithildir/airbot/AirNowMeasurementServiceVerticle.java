@@ -22,10 +22,19 @@
 
 package com.github.ithildir.airbot;
 
+import com.github.ithildir.airbot.constants.ConfigKeys;
 import com.github.ithildir.airbot.service.MeasurementService;
 import com.github.ithildir.airbot.service.impl.AirNowMeasurementServiceImpl;
 
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClientOptions;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
 
 /**
  * @author Andrea Di Giorgi
@@ -40,7 +49,40 @@ public class AirNowMeasurementServiceVerticle
 
 	@Override
 	protected MeasurementService getServiceImpl(JsonObject configJsonObject) {
-		return new AirNowMeasurementServiceImpl(vertx);
+		long refreshMinInterval = configJsonObject.getLong(
+			ConfigKeys.AIRNOW_REFRESH_MIN_INTERVAL,
+			_DEFAULT_AIRNOW_REFRESH_MIN_INTERVAL);
+		long refreshMaxInterval = configJsonObject.getLong(
+			ConfigKeys.AIRNOW_REFRESH_MAX_INTERVAL,
+			_DEFAULT_AIRNOW_REFRESH_MAX_INTERVAL);
+		String snapshotFileName = configJsonObject.getString(
+			ConfigKeys.AIRNOW_SNAPSHOT_FILE,
+			_DEFAULT_AIRNOW_SNAPSHOT_FILE_NAME);
+
+		Path snapshotPath = null;
+
+		if (StringUtils.isNotBlank(snapshotFileName)) {
+			snapshotPath = Paths.get(snapshotFileName);
+		}
+
+		WebClientOptions webClientOptions = getWebClientOptions(
+			configJsonObject, ConfigKeys.AIRNOW_WEB_CLIENT_OPTIONS,
+			_DEFAULT_AIRNOW_MAX_POOL_SIZE);
+
+		return new AirNowMeasurementServiceImpl(
+			vertx, refreshMinInterval, refreshMaxInterval, snapshotPath,
+			webClientOptions);
 	}
 
+	private static final int _DEFAULT_AIRNOW_MAX_POOL_SIZE = 1;
+
+	private static final long _DEFAULT_AIRNOW_REFRESH_MAX_INTERVAL =
+		TimeUnit.MINUTES.toMillis(15);
+
+	private static final long _DEFAULT_AIRNOW_REFRESH_MIN_INTERVAL =
+		TimeUnit.MINUTES.toMillis(1);
+
+	private static final String _DEFAULT_AIRNOW_SNAPSHOT_FILE_NAME =
+		System.getProperty("java.io.tmpdir") + "/airbot/airnow.snapshot";
+
 }
\ No newline at end of file
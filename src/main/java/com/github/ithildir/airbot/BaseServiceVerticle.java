@@ -22,13 +22,23 @@
 
 package com.github.ithildir.airbot;
 
+import com.github.ithildir.airbot.constants.ConfigKeys;
+import com.github.ithildir.airbot.util.CircuitBreaker;
+import com.github.ithildir.airbot.util.MetricsProvider;
+import com.github.ithildir.airbot.util.QuotaManager;
+
 import io.vertx.config.ConfigRetriever;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Future;
 import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.serviceproxy.ProxyHelper;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author Andrea Di Giorgi
  */
@@ -48,9 +58,18 @@ public abstract class BaseServiceVerticle<T> extends AbstractVerticle {
 
 				JsonObject configJsonObject = asyncResult.result();
 
+				T serviceImpl = getServiceImpl(configJsonObject);
+
 				_messageConsumer = ProxyHelper.registerService(
-					getServiceInterface(), vertx,
-					getServiceImpl(configJsonObject), getAddress());
+					getServiceInterface(), vertx, serviceImpl, getAddress());
+
+				if (serviceImpl instanceof MetricsProvider) {
+					long metricsInterval = configJsonObject.getLong(
+						ConfigKeys.METRICS_INTERVAL, _DEFAULT_METRICS_INTERVAL);
+
+					_scheduleMetrics(
+						(MetricsProvider)serviceImpl, metricsInterval);
+				}
 
 				startFuture.complete();
 			});
@@ -63,10 +82,129 @@ public abstract class BaseServiceVerticle<T> extends AbstractVerticle {
 
 	protected abstract String getAddress();
 
+	/**
+	 * Returns the circuit breaker guarding a provider's upstream calls,
+	 * configured by the <code>maxFailures</code>, <code>timeout</code> and
+	 * <code>resetTimeout</code> (milliseconds) fields of the given
+	 * configuration key.
+	 */
+	protected CircuitBreaker getCircuitBreaker(
+		JsonObject configJsonObject, String key, String name) {
+
+		JsonObject circuitBreakerOptionsJsonObject = _getJsonObject(
+			configJsonObject, key);
+
+		int maxFailures = circuitBreakerOptionsJsonObject.getInteger(
+			"maxFailures", _DEFAULT_CIRCUIT_BREAKER_MAX_FAILURES);
+		long timeout = circuitBreakerOptionsJsonObject.getLong(
+			"timeout", _DEFAULT_CIRCUIT_BREAKER_TIMEOUT);
+		long resetTimeout = circuitBreakerOptionsJsonObject.getLong(
+			"resetTimeout", _DEFAULT_CIRCUIT_BREAKER_RESET_TIMEOUT);
+
+		return new CircuitBreaker(
+			vertx, name, maxFailures, timeout, resetTimeout);
+	}
+
 	protected abstract T getServiceImpl(JsonObject configJsonObject);
 
 	protected abstract Class<T> getServiceInterface();
 
+	/**
+	 * Returns the quota manager of a provider, configured by the
+	 * <code>rate</code> (requests per second), <code>burst</code> and
+	 * <code>maxQueueTime</code> (milliseconds) fields of the given
+	 * configuration key.
+	 */
+	protected QuotaManager getQuotaManager(
+		JsonObject configJsonObject, String key, String name,
+		double defaultRate, int defaultBurst) {
+
+		JsonObject quotaOptionsJsonObject = _getJsonObject(
+			configJsonObject, key);
+
+		double rate = quotaOptionsJsonObject.getDouble("rate", defaultRate);
+		int burst = quotaOptionsJsonObject.getInteger("burst", defaultBurst);
+		long maxQueueTime = quotaOptionsJsonObject.getLong(
+			"maxQueueTime", _DEFAULT_QUOTA_MAX_QUEUE_TIME);
+
+		return new QuotaManager(vertx, name, rate, burst, maxQueueTime);
+	}
+
+	/**
+	 * Returns the options of a provider's web client, read from the JSON
+	 * object (or string) of the given configuration key and merged over
+	 * defaults suited to long-lived, keep-alive connections.
+	 */
+	protected WebClientOptions getWebClientOptions(
+		JsonObject configJsonObject, String key, int defaultMaxPoolSize) {
+
+		JsonObject webClientOptionsJsonObject = new JsonObject();
+
+		webClientOptionsJsonObject.put(
+			"connectTimeout", _DEFAULT_WEB_CLIENT_CONNECT_TIMEOUT);
+		webClientOptionsJsonObject.put(
+			"idleTimeout", _DEFAULT_WEB_CLIENT_IDLE_TIMEOUT);
+		webClientOptionsJsonObject.put("keepAlive", true);
+		webClientOptionsJsonObject.put("maxPoolSize", defaultMaxPoolSize);
+
+		webClientOptionsJsonObject.mergeIn(
+			_getJsonObject(configJsonObject, key));
+
+		return new WebClientOptions(webClientOptionsJsonObject);
+	}
+
+	private JsonObject _getJsonObject(JsonObject configJsonObject, String key) {
+		Object value = configJsonObject.getValue(key);
+
+		if (value instanceof JsonObject) {
+			return (JsonObject)value;
+		}
+
+		if (value instanceof String) {
+			return new JsonObject((String)value);
+		}
+
+		return new JsonObject();
+	}
+
+	private void _scheduleMetrics(
+		MetricsProvider metricsProvider, long metricsInterval) {
+
+		if (metricsInterval <= 0) {
+			return;
+		}
+
+		vertx.setPeriodic(
+			metricsInterval,
+			timerId -> {
+				JsonObject metricsJsonObject = metricsProvider.getMetrics();
+
+				_logger.info(
+					"Metrics of {0}: {1}", getAddress(),
+					metricsJsonObject.encode());
+			});
+	}
+
+	private static final int _DEFAULT_CIRCUIT_BREAKER_MAX_FAILURES = 5;
+
+	private static final long _DEFAULT_CIRCUIT_BREAKER_RESET_TIMEOUT =
+		TimeUnit.SECONDS.toMillis(30);
+
+	private static final long _DEFAULT_CIRCUIT_BREAKER_TIMEOUT =
+		TimeUnit.SECONDS.toMillis(10);
+
+	private static final long _DEFAULT_METRICS_INTERVAL =
+		TimeUnit.MINUTES.toMillis(5);
+
+	private static final long _DEFAULT_QUOTA_MAX_QUEUE_TIME = 5000;
+
+	private static final int _DEFAULT_WEB_CLIENT_CONNECT_TIMEOUT = 10000;
+
+	private static final int _DEFAULT_WEB_CLIENT_IDLE_TIMEOUT = 60;
+
+	private static final Logger _logger = LoggerFactory.getLogger(
+		BaseServiceVerticle.class);
+
 	private MessageConsumer<JsonObject> _messageConsumer;
 
 }
\ No newline at end of file
@@ -25,8 +25,12 @@ package com.github.ithildir.airbot;
 import com.github.ithildir.airbot.constants.ConfigKeys;
 import com.github.ithildir.airbot.service.GeoService;
 import com.github.ithildir.airbot.service.impl.MapQuestGeoServiceImpl;
+import com.github.ithildir.airbot.util.QuotaManager;
 
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClientOptions;
+
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Andrea Di Giorgi
@@ -43,8 +47,28 @@ public class GeoServiceVerticle extends BaseServiceVerticle<GeoService> {
 		String key = configJsonObject.getString(ConfigKeys.MAPQUEST_KEY);
 		boolean open = configJsonObject.getBoolean(
 			ConfigKeys.MAPQUEST_OPEN, _DEFAULT_MAPQUEST_OPEN);
+		WebClientOptions webClientOptions = getWebClientOptions(
+			configJsonObject, ConfigKeys.MAPQUEST_WEB_CLIENT_OPTIONS,
+			_DEFAULT_MAPQUEST_MAX_POOL_SIZE);
+
+		QuotaManager quotaManager = getQuotaManager(
+			configJsonObject, ConfigKeys.MAPQUEST_QUOTA_OPTIONS, "MapQuest",
+			_DEFAULT_MAPQUEST_QUOTA_RATE, _DEFAULT_MAPQUEST_QUOTA_BURST);
+
+		double reversePrecision = configJsonObject.getDouble(
+			ConfigKeys.MAPQUEST_REVERSE_PRECISION,
+			_DEFAULT_MAPQUEST_REVERSE_PRECISION);
 
-		return new MapQuestGeoServiceImpl(vertx, key, open);
+		int batchMaxSize = configJsonObject.getInteger(
+			ConfigKeys.MAPQUEST_BATCH_MAX_SIZE,
+			_DEFAULT_MAPQUEST_BATCH_MAX_SIZE);
+		long batchMaxDelay = configJsonObject.getLong(
+			ConfigKeys.MAPQUEST_BATCH_MAX_DELAY,
+			_DEFAULT_MAPQUEST_BATCH_MAX_DELAY);
+
+		return new MapQuestGeoServiceImpl(
+			vertx, key, open, webClientOptions, quotaManager,
+			reversePrecision, batchMaxSize, batchMaxDelay);
 	}
 
 	@Override
@@ -52,6 +76,29 @@ public class GeoServiceVerticle extends BaseServiceVerticle<GeoService> {
 		return GeoService.class;
 	}
 
+	private static final long _DEFAULT_MAPQUEST_BATCH_MAX_DELAY = 20;
+
+	/**
+	 * MapQuest's batch geocoding accepts up to 100 locations per request.
+	 */
+	private static final int _DEFAULT_MAPQUEST_BATCH_MAX_SIZE = 100;
+
+	private static final int _DEFAULT_MAPQUEST_MAX_POOL_SIZE = 10;
+
 	private static final boolean _DEFAULT_MAPQUEST_OPEN = true;
 
+	private static final int _DEFAULT_MAPQUEST_QUOTA_BURST = 500;
+
+	/**
+	 * MapQuest's free plan allows 15,000 transactions per month.
+	 */
+	private static final double _DEFAULT_MAPQUEST_QUOTA_RATE =
+		15000.0 / TimeUnit.DAYS.toSeconds(30);
+
+	/**
+	 * Rounds device coordinates to about 1 km, which is more than enough to
+	 * resolve their country and the nearest monitoring station.
+	 */
+	private static final double _DEFAULT_MAPQUEST_REVERSE_PRECISION = 0.01;
+
 }
\ No newline at end of file
@@ -25,8 +25,18 @@ package com.github.ithildir.airbot;
 import com.github.ithildir.airbot.constants.ConfigKeys;
 import com.github.ithildir.airbot.service.MeasurementService;
 import com.github.ithildir.airbot.service.impl.WaqiMeasurementServiceImpl;
+import com.github.ithildir.airbot.util.CircuitBreaker;
+import com.github.ithildir.airbot.util.QuotaManager;
 
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClientOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
 
 /**
  * @author Andrea Di Giorgi
@@ -42,8 +52,69 @@ public class WaqiMeasurementServiceVerticle
 	@Override
 	protected MeasurementService getServiceImpl(JsonObject configJsonObject) {
 		String key = configJsonObject.getString(ConfigKeys.WAQI_KEY);
+		WebClientOptions webClientOptions = getWebClientOptions(
+			configJsonObject, ConfigKeys.WAQI_WEB_CLIENT_OPTIONS,
+			_DEFAULT_WAQI_MAX_POOL_SIZE);
+
+		QuotaManager quotaManager = getQuotaManager(
+			configJsonObject, ConfigKeys.WAQI_QUOTA_OPTIONS, "WAQI",
+			_DEFAULT_WAQI_QUOTA_RATE, _DEFAULT_WAQI_QUOTA_BURST);
+
+		CircuitBreaker circuitBreaker = getCircuitBreaker(
+			configJsonObject, ConfigKeys.WAQI_CIRCUIT_BREAKER_OPTIONS, "WAQI");
+
+		List<String> prefetchRegions = _getPrefetchRegions(configJsonObject);
+		long prefetchInterval = configJsonObject.getLong(
+			ConfigKeys.WAQI_PREFETCH_INTERVAL, _DEFAULT_WAQI_PREFETCH_INTERVAL);
+
+		long maxStaleness = configJsonObject.getLong(
+			ConfigKeys.WAQI_MAX_STALENESS, _DEFAULT_WAQI_MAX_STALENESS);
+
+		return new WaqiMeasurementServiceImpl(
+			vertx, key, webClientOptions, quotaManager, circuitBreaker,
+			prefetchRegions, prefetchInterval, maxStaleness);
+	}
+
+	/**
+	 * Returns the regions whose stations are prefetched, each one in the
+	 * "lat1,lng1,lat2,lng2" format of WAQI's map bounds API. They are read
+	 * from a JSON array, or from a string of regions separated by
+	 * semicolons.
+	 */
+	private List<String> _getPrefetchRegions(JsonObject configJsonObject) {
+		Object value = configJsonObject.getValue(
+			ConfigKeys.WAQI_PREFETCH_REGIONS);
 
-		return new WaqiMeasurementServiceImpl(vertx, key);
+		List<String> prefetchRegions = new ArrayList<>();
+
+		if (value instanceof JsonArray) {
+			JsonArray jsonArray = (JsonArray)value;
+
+			for (int i = 0; i < jsonArray.size(); i++) {
+				prefetchRegions.add(jsonArray.getString(i));
+			}
+		}
+		else if (value instanceof String) {
+			for (String prefetchRegion : StringUtils.split(
+					(String)value, ';')) {
+
+				prefetchRegions.add(prefetchRegion.trim());
+			}
+		}
+
+		return prefetchRegions;
 	}
 
+	private static final int _DEFAULT_WAQI_MAX_POOL_SIZE = 20;
+
+	private static final long _DEFAULT_WAQI_MAX_STALENESS =
+		TimeUnit.HOURS.toMillis(1);
+
+	private static final long _DEFAULT_WAQI_PREFETCH_INTERVAL =
+		TimeUnit.MINUTES.toMillis(30);
+
+	private static final int _DEFAULT_WAQI_QUOTA_BURST = 100;
+
+	private static final double _DEFAULT_WAQI_QUOTA_RATE = 50;
+
 }
\ No newline at end of file
@@ -27,16 +27,59 @@ package com.github.ithildir.airbot.constants;
  */
 public class ConfigKeys {
 
+	public static final String AIRNOW_REFRESH_MAX_INTERVAL =
+		"airnow_refresh_max_interval";
+
+	public static final String AIRNOW_REFRESH_MIN_INTERVAL =
+		"airnow_refresh_min_interval";
+
+	public static final String AIRNOW_SNAPSHOT_FILE = "airnow_snapshot_file";
+
+	public static final String AIRNOW_WEB_CLIENT_OPTIONS =
+		"airnow_web_client_options";
+
+	public static final String MAPQUEST_BATCH_MAX_DELAY =
+		"mapquest_batch_max_delay";
+
+	public static final String MAPQUEST_BATCH_MAX_SIZE =
+		"mapquest_batch_max_size";
+
 	public static final String MAPQUEST_KEY = "mapquest_key";
 
 	public static final String MAPQUEST_OPEN = "mapquest_open";
 
+	public static final String MAPQUEST_QUOTA_OPTIONS =
+		"mapquest_quota_options";
+
+	public static final String MAPQUEST_REVERSE_PRECISION =
+		"mapquest_reverse_precision";
+
+	public static final String MAPQUEST_WEB_CLIENT_OPTIONS =
+		"mapquest_web_client_options";
+
+	public static final String METRICS_INTERVAL = "metrics_interval";
+
 	public static final String PASSWORD = "password";
 
 	public static final String PORT = "port";
 
 	public static final String USERNAME = "username";
 
+	public static final String WAQI_CIRCUIT_BREAKER_OPTIONS =
+		"waqi_circuit_breaker_options";
+
 	public static final String WAQI_KEY = "waqi_key";
 
+	public static final String WAQI_MAX_STALENESS = "waqi_max_staleness";
+
+	public static final String WAQI_PREFETCH_INTERVAL =
+		"waqi_prefetch_interval";
+
+	public static final String WAQI_PREFETCH_REGIONS = "waqi_prefetch_regions";
+
+	public static final String WAQI_QUOTA_OPTIONS = "waqi_quota_options";
+
+	public static final String WAQI_WEB_CLIENT_OPTIONS =
+		"waqi_web_client_options";
+
 }
\ No newline at end of file
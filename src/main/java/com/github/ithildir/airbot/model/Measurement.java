@@ -65,6 +65,14 @@ public class Measurement {
 		return _mainPollutant;
 	}
 
+	/**
+	 * Returns how long, in milliseconds, the measurement has been served past
+	 * its freshness window, or <code>0</code> if it is fresh.
+	 */
+	public long getStaleness() {
+		return _staleness;
+	}
+
 	public long getTime() {
 		return _time;
 	}
@@ -89,6 +97,10 @@ public class Measurement {
 		_mainPollutant = mainPollutant;
 	}
 
+	public void setStaleness(long staleness) {
+		_staleness = staleness;
+	}
+
 	public void setTime(long time) {
 		_time = time;
 	}
@@ -109,6 +121,7 @@ public class Measurement {
 	private String _city;
 	private String _comments;
 	private String _mainPollutant;
+	private long _staleness;
 	private long _time;
 	private Map<String, Double> _values;
 
@@ -32,6 +32,7 @@ import com.github.ithildir.airbot.service.GeoService;
 import com.github.ithildir.airbot.service.MeasurementService;
 import com.github.ithildir.airbot.service.UserService;
 import com.github.ithildir.airbot.util.AirBotUtil;
+import com.github.ithildir.airbot.util.CountryResolver;
 import com.github.ithildir.airbot.util.LanguageUtil;
 
 import com.google.gson.JsonArray;
@@ -56,10 +57,11 @@ public class GetAirQualityApiAiFulfillmentBuilder
 	implements ApiAiFulfillmentBuilder {
 
 	public GetAirQualityApiAiFulfillmentBuilder(
-		GeoService geoService,
+		CountryResolver countryResolver, GeoService geoService,
 		Map<String, MeasurementService> measurementServices,
 		UserService userService) {
 
+		_countryResolver = countryResolver;
 		_geoService = geoService;
 		_measurementServices = measurementServices;
 		_userService = userService;
@@ -89,17 +91,35 @@ public class GetAirQualityApiAiFulfillmentBuilder
 	private Future<Fulfillment> _buildFulfillment(
 		Locale locale, String query, Location location) {
 
+		MeasurementService defaultMeasurementService = _measurementServices.get(
+			null);
 		MeasurementService measurementService = _measurementServices.get(
 			location.getCountry());
 
-		if (measurementService == null) {
-			measurementService = _measurementServices.get(null);
-		}
+		Future<Measurement> measurementFuture;
 
-		Future<Measurement> measurementFuture = Future.future();
+		if ((measurementService == null) ||
+			(measurementService == defaultMeasurementService)) {
 
-		measurementService.getMeasurement(
-			location.getLatitude(), location.getLongitude(), measurementFuture);
+			measurementFuture = _getMeasurement(
+				defaultMeasurementService, location);
+		}
+		else {
+			measurementFuture = _getMeasurement(measurementService, location);
+
+			measurementFuture = measurementFuture.recover(
+				t -> {
+					if (_logger.isDebugEnabled()) {
+						_logger.debug(
+							"Unable to get measurement for " +
+								location.getCountry() +
+									", falling back to default service",
+							t);
+					}
+
+					return _getMeasurement(defaultMeasurementService, location);
+				});
+		}
 
 		return measurementFuture.compose(
 			measurement -> {
@@ -122,17 +142,25 @@ public class GetAirQualityApiAiFulfillmentBuilder
 		if (measurement != null) {
 			String aqiLevel = AirBotUtil.getAQILevel(
 				measurement.getAqi(), locale);
-			String mainPollutant = LanguageUtil.get(
-				locale, "pollutant-" + measurement.getMainPollutant());
 
 			PrettyTime prettyTime = new PrettyTime(locale);
 
 			String time = prettyTime.format(new Date(measurement.getTime()));
 
-			speech = LanguageUtil.format(
-				locale,
-				"the-air-quality-index-in-x-was-x-x-x-with-x-as-main-pollutant",
-				city, measurement.getAqi(), aqiLevel, time, mainPollutant);
+			if (measurement.getMainPollutant() == null) {
+				speech = LanguageUtil.format(
+					locale, "the-air-quality-index-in-x-was-x-x-x", city,
+					measurement.getAqi(), aqiLevel, time);
+			}
+			else {
+				String mainPollutant = LanguageUtil.get(
+					locale, "pollutant-" + measurement.getMainPollutant());
+
+				speech = LanguageUtil.format(
+					locale,
+					"the-air-quality-index-in-x-was-x-x-x-with-x-as-main-pollutant",
+					city, measurement.getAqi(), aqiLevel, time, mainPollutant);
+			}
 		}
 		else {
 			speech = LanguageUtil.format(
@@ -193,6 +221,13 @@ public class GetAirQualityApiAiFulfillmentBuilder
 
 		return locationFuture.compose(
 			location -> {
+				if (location == null) {
+					Fulfillment fulfillment = _buildFulfillment(
+						locale, query, (Measurement)null);
+
+					return Future.succeededFuture(fulfillment);
+				}
+
 				return _buildFulfillment(locale, query, location);
 			});
 	}
@@ -245,6 +280,17 @@ public class GetAirQualityApiAiFulfillmentBuilder
 			});
 	}
 
+	private Future<Measurement> _getMeasurement(
+		MeasurementService measurementService, Location location) {
+
+		Future<Measurement> future = Future.future();
+
+		measurementService.getMeasurement(
+			location.getLatitude(), location.getLongitude(), future);
+
+		return future;
+	}
+
 	private String _getQuery(AIResponse aiResponse) {
 		Result result = aiResponse.getResult();
 
@@ -300,18 +346,19 @@ public class GetAirQualityApiAiFulfillmentBuilder
 		JsonElement longitudeJsonElement = coordinatesJsonObject.get(
 			"longitude");
 
-		Future<Location> future = Future.future();
+		double latitude = latitudeJsonElement.getAsDouble();
+		double longitude = longitudeJsonElement.getAsDouble();
 
-		_geoService.getLocationByCoordinates(
-			latitudeJsonElement.getAsDouble(),
-			longitudeJsonElement.getAsDouble(), future);
+		String country = _countryResolver.getCountry(latitude, longitude);
 
-		return future;
+		return Future.succeededFuture(
+			new Location(latitude, longitude, country));
 	}
 
 	private static final Logger _logger = LoggerFactory.getLogger(
 		GetAirQualityApiAiFulfillmentBuilder.class);
 
+	private final CountryResolver _countryResolver;
 	private final GeoService _geoService;
 	private final Map<String, MeasurementService> _measurementServices;
 	private final UserService _userService;
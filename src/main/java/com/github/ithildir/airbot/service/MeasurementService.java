@@ -53,6 +53,14 @@ public interface MeasurementService {
 			MeasurementService.class, vertx, getAddress(country));
 	}
 
+	public void getForecast(
+		double latitude, double longitude, long time,
+		Handler<AsyncResult<Measurement>> handler);
+
+	public void getHistoricalMeasurement(
+		double latitude, double longitude, long time,
+		Handler<AsyncResult<Measurement>> handler);
+
 	public void getMeasurement(
 		double latitude, double longitude,
 		Handler<AsyncResult<Measurement>> handler);
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.service.impl;
+
+import com.github.ithildir.airbot.model.Measurement;
+import com.github.ithildir.airbot.util.MeasurementRingBuffer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the latest observations of each reporting area across snapshots. It
+ * is not thread-safe, and must be accessed by the service's context only.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class AirNowHistory {
+
+	public AirNowHistory(int capacity, long maxAge) {
+		_capacity = capacity;
+		_maxAge = maxAge;
+	}
+
+	public void add(AirNowSnapshot snapshot) {
+		for (int i = 0; i < snapshot.size(); i++) {
+			Measurement measurement = snapshot.getMeasurement(i);
+
+			if (measurement == null) {
+				continue;
+			}
+
+			String reportingArea = snapshot.getReportingArea(i);
+
+			MeasurementRingBuffer measurementRingBuffer =
+				_measurementRingBuffers.get(reportingArea);
+
+			if (measurementRingBuffer == null) {
+				measurementRingBuffer = new MeasurementRingBuffer(_capacity);
+
+				_measurementRingBuffers.put(
+					reportingArea, measurementRingBuffer);
+			}
+
+			measurementRingBuffer.add(
+				measurement.getTime(), measurement.getAqi(),
+				_getPollutantId(measurement.getMainPollutant()));
+		}
+	}
+
+	/**
+	 * Returns the latest observation of the given reporting area taken at or
+	 * before the given time, or <code>null</code> if there is none recent
+	 * enough.
+	 */
+	public Measurement getMeasurement(String reportingArea, long time) {
+		MeasurementRingBuffer measurementRingBuffer =
+			_measurementRingBuffers.get(reportingArea);
+
+		if (measurementRingBuffer == null) {
+			return null;
+		}
+
+		int index = measurementRingBuffer.getIndex(time);
+
+		if (index < 0) {
+			return null;
+		}
+
+		long measurementTime = measurementRingBuffer.getTime(index);
+
+		if ((time - measurementTime) > _maxAge) {
+			return null;
+		}
+
+		String mainPollutant = _pollutants.get(
+			measurementRingBuffer.getPollutantId(index));
+
+		return new Measurement(
+			reportingArea, measurementTime,
+			measurementRingBuffer.getAqi(index), mainPollutant,
+			Collections.emptyMap(), null);
+	}
+
+	public int size() {
+		return _measurementRingBuffers.size();
+	}
+
+	private int _getPollutantId(String pollutant) {
+		Integer pollutantId = _pollutantIds.get(pollutant);
+
+		if (pollutantId == null) {
+			pollutantId = _pollutants.size();
+
+			_pollutantIds.put(pollutant, pollutantId);
+			_pollutants.add(pollutant);
+		}
+
+		return pollutantId;
+	}
+
+	private final int _capacity;
+	private final long _maxAge;
+	private final Map<String, MeasurementRingBuffer> _measurementRingBuffers =
+		new HashMap<>();
+	private final Map<String, Integer> _pollutantIds = new HashMap<>();
+	private final List<String> _pollutants = new ArrayList<>();
+
+}
\ No newline at end of file
@@ -22,10 +22,14 @@
 
 package com.github.ithildir.airbot.service.impl;
 
-import com.github.ithildir.airbot.model.Location;
 import com.github.ithildir.airbot.model.Measurement;
 import com.github.ithildir.airbot.service.MeasurementService;
+import com.github.ithildir.airbot.util.AdaptivePollingPolicy;
+import com.github.ithildir.airbot.util.DecompressingWriteStream;
+import com.github.ithildir.airbot.util.MetricsProvider;
 import com.github.ithildir.airbot.util.RecordParserWriteStream;
+import com.github.ithildir.airbot.util.StringPool;
+import com.github.ithildir.airbot.util.WebClientMonitor;
 
 import io.netty.handler.codec.http.HttpResponseStatus;
 
@@ -33,11 +37,10 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
-import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
-import io.vertx.core.parsetools.RecordParser;
 import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
@@ -45,31 +48,65 @@ import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.ext.web.codec.BodyCodec;
 import io.vertx.serviceproxy.ServiceException;
 
-import java.time.Instant;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
+import java.nio.file.Path;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.lang3.BooleanUtils;
-import org.apache.commons.lang3.CharUtils;
 import org.apache.commons.lang3.StringUtils;
 
 /**
  * @author Andrea Di Giorgi
  */
-public class AirNowMeasurementServiceImpl implements MeasurementService {
+public class AirNowMeasurementServiceImpl
+	implements MeasurementService, MetricsProvider {
 
-	public AirNowMeasurementServiceImpl(Vertx vertx) {
-		WebClientOptions webClientOptions = new WebClientOptions();
+	public AirNowMeasurementServiceImpl(
+		Vertx vertx, long refreshMinInterval, long refreshMaxInterval,
+		Path snapshotPath, WebClientOptions webClientOptions) {
+
+		_vertx = vertx;
+		_snapshotPath = snapshotPath;
+
+		_adaptivePollingPolicy = new AdaptivePollingPolicy(
+			_REFRESH_PERIOD, refreshMinInterval, refreshMaxInterval,
+			_REFRESH_WINDOW_BEFORE, _REFRESH_WINDOW_AFTER);
 
 		webClientOptions.setDefaultHost("files.airnowtech.org");
 		webClientOptions.setDefaultPort(443);
 		webClientOptions.setSsl(true);
 
 		_webClient = WebClient.create(vertx, webClientOptions);
+		_webClientMonitor = new WebClientMonitor("AirNow", webClientOptions);
+	}
+
+	@Override
+	public void getForecast(
+		double latitude, double longitude, long time,
+		Handler<AsyncResult<Measurement>> handler) {
+
+		Measurement forecast = _snapshot.getForecast(
+			latitude, longitude, time);
+
+		handler.handle(Future.succeededFuture(forecast));
+	}
+
+	@Override
+	public void getHistoricalMeasurement(
+		double latitude, double longitude, long time,
+		Handler<AsyncResult<Measurement>> handler) {
+
+		AirNowSnapshot snapshot = _snapshot;
+
+		Measurement measurement = null;
+
+		int reportingAreaId = snapshot.getReportingAreaId(latitude, longitude);
+
+		if (reportingAreaId >= 0) {
+			measurement = _airNowHistory.getMeasurement(
+				snapshot.getReportingArea(reportingAreaId), time);
+		}
+
+		handler.handle(Future.succeededFuture(measurement));
 	}
 
 	@Override
@@ -77,76 +114,101 @@ public class AirNowMeasurementServiceImpl implements MeasurementService {
 		double latitude, double longitude,
 		Handler<AsyncResult<Measurement>> handler) {
 
-		Measurement measurement = null;
+		Measurement measurement = _snapshot.getMeasurement(latitude, longitude);
+
+		if (measurement != null) {
+			long staleness =
+				System.currentTimeMillis() - measurement.getTime() -
+					_MEASUREMENT_FRESHNESS_PERIOD;
 
-		String reportingArea = _getReportingArea(latitude, longitude);
+			if (staleness > 0) {
+				measurement = new Measurement(measurement.toJson());
 
-		if (reportingArea != null) {
-			measurement = _reportingAreaMeasurements.get(reportingArea);
+				measurement.setStaleness(staleness);
+			}
 		}
 
 		handler.handle(Future.succeededFuture(measurement));
 	}
 
+	public long getLastChangeTime() {
+		return _adaptivePollingPolicy.getLastChangeTime();
+	}
+
+	@Override
+	public JsonObject getMetrics() {
+		JsonObject jsonObject = new JsonObject();
+
+		jsonObject.put("lastChangeTime", getLastChangeTime());
+		jsonObject.put("nextPollTime", getNextPollTime());
+		jsonObject.put("webClient", _webClientMonitor.getMetrics());
+
+		return jsonObject;
+	}
+
+	public long getNextPollTime() {
+		return _nextPollTime;
+	}
+
 	@Override
 	public void init(Handler<AsyncResult<Void>> handler) {
-		if (StringUtils.isBlank(_reportingAreaETag)) {
-			_initReportingAreaRecords(handler);
+		if ((_snapshot != AirNowSnapshot.EMPTY) || (_snapshotPath == null)) {
+			_refresh(handler);
 
 			return;
 		}
 
-		HttpRequest<?> httpRequest = _webClient.head(_REPORTING_AREA_URI);
-
-		httpRequest = httpRequest.as(BodyCodec.none());
-
-		httpRequest.send(
+		_vertx.<AirNowSnapshot>executeBlocking(
+			future -> {
+				try {
+					future.complete(
+						AirNowSnapshotSerializer.read(_snapshotPath));
+				}
+				catch (Exception e) {
+					future.fail(e);
+				}
+			},
 			asyncResult -> {
-				HttpResponse<?> httpResponse = _handleHttpResponse(
-					asyncResult, handler);
+				AirNowSnapshot snapshot = null;
 
-				if (httpResponse == null) {
-					return;
+				if (asyncResult.failed()) {
+					_logger.warn(
+						"Unable to read reporting area records from {0}",
+						asyncResult.cause(), _snapshotPath);
+				}
+				else {
+					snapshot = asyncResult.result();
 				}
 
-				String etag = httpResponse.getHeader(
-					HttpHeaders.ETAG.toString());
-
-				if (_reportingAreaETag.equals(etag)) {
-					if (_logger.isDebugEnabled()) {
-						_logger.debug(
-							"Reporting area records are already up-to-date " +
-								"with ETag {0}",
-							etag);
-					}
+				if (snapshot == null) {
+					_refresh(handler);
 
 					return;
 				}
 
-				_initReportingAreaRecords(handler);
-			});
-	}
-
-	private String _getReportingArea(double latitude, double longitude) {
-		Location coordinates = new Location(latitude, longitude, "US");
-
-		double distance = Double.MAX_VALUE;
-		String reportingArea = null;
+				_snapshot = snapshot;
 
-		for (Map.Entry<String, Location> entry :
-				_reportingAreaCoordinates.entrySet()) {
+				_airNowHistory.add(snapshot);
 
-			Location curCoordinates = entry.getValue();
+				_adaptivePollingPolicy.onChange(snapshot.getBuildTime());
 
-			double curDistance = coordinates.getDistance(curCoordinates);
+				if (_logger.isDebugEnabled()) {
+					_logger.debug(
+						"Reporting area records read from {0} with ETag {1}",
+						_snapshotPath, snapshot.getETag());
+				}
 
-			if ((reportingArea == null) || (curDistance < distance)) {
-				distance = curDistance;
-				reportingArea = entry.getKey();
-			}
-		}
+				handler.handle(Future.succeededFuture());
 
-		return reportingArea;
+				_refresh(
+					refreshAsyncResult -> {
+						if (refreshAsyncResult.failed()) {
+							_logger.error(
+								"Unable to refresh reporting area records",
+								refreshAsyncResult.cause());
+						}
+					});
+			});
 	}
 
 	private <R, T> HttpResponse<T> _handleHttpResponse(
@@ -174,57 +236,63 @@ public class AirNowMeasurementServiceImpl implements MeasurementService {
 		return httpResponse;
 	}
 
-	private void _initReportingAreaRecord(Buffer buffer) {
-		String[] values = StringUtils.split(buffer.toString(), '|');
+	private void _initReportingAreaRecords(Handler<AsyncResult<Void>> handler) {
+		AirNowSnapshot snapshot = _snapshot;
 
-		char dataType = CharUtils.toChar(values[5]);
+		HttpRequest<?> httpRequest = _webClient.get(_REPORTING_AREA_URI);
 
-		if (dataType != 'O') {
-			return;
-		}
+		httpRequest.putHeader(
+			HttpHeaders.ACCEPT_ENCODING.toString(), _ACCEPT_ENCODING);
 
-		boolean primary = BooleanUtils.toBoolean(values[6]);
+		String etag = snapshot.getETag();
 
-		if (!primary) {
-			return;
+		if (StringUtils.isNotBlank(etag)) {
+			httpRequest.putHeader(HttpHeaders.IF_NONE_MATCH.toString(), etag);
 		}
 
-		String stateCode = values[8];
+		String lastModified = snapshot.getLastModified();
 
-		if (StringUtils.isBlank(stateCode)) {
-			return;
+		if (StringUtils.isNotBlank(lastModified)) {
+			httpRequest.putHeader(
+				HttpHeaders.IF_MODIFIED_SINCE.toString(), lastModified);
 		}
 
-		long time = _parseTime(values[1], values[2], values[3]);
-		String reportingArea = values[7];
-		double latitude = Double.parseDouble(values[9]);
-		double longitude = Double.parseDouble(values[10]);
-		String mainPollutant = _parsePollutant(values[11]);
-		int aqi = Integer.parseInt(values[12]);
-		String comments = values[15];
-
-		Location coordinates = new Location(latitude, longitude, "US");
+		AirNowSnapshotBuilder airNowSnapshotBuilder =
+			new AirNowSnapshotBuilder();
 
-		_reportingAreaCoordinates.put(reportingArea, coordinates);
+		AirNowTimeDecoder airNowTimeDecoder = new AirNowTimeDecoder();
 
-		Measurement measurement = new Measurement(
-			reportingArea, time, aqi, mainPollutant, Collections.emptyMap(),
-			comments);
+		RecordParserWriteStream recordParserWriteStream =
+			new RecordParserWriteStream(
+				"\n",
+				new AirNowRecordParser(
+					airNowSnapshotBuilder, airNowTimeDecoder, _stringPool),
+				_vertx);
 
-		_reportingAreaMeasurements.put(reportingArea, measurement);
-	}
+		Future<Void> parseFuture = Future.future();
 
-	private void _initReportingAreaRecords(Handler<AsyncResult<Void>> handler) {
-		HttpRequest<?> httpRequest = _webClient.get(_REPORTING_AREA_URI);
+		recordParserWriteStream.resultHandler(parseFuture);
 
-		RecordParser recordParser = RecordParser.newDelimited(
-			"\n", this::_initReportingAreaRecord);
+		DecompressingWriteStream decompressingWriteStream =
+			new DecompressingWriteStream(recordParserWriteStream);
 
-		httpRequest = httpRequest.as(
-			BodyCodec.pipe(new RecordParserWriteStream(recordParser)));
+		httpRequest = httpRequest.as(BodyCodec.pipe(decompressingWriteStream));
 
-		httpRequest.send(
+		_webClientMonitor.send(
+			httpRequest,
 			asyncResult -> {
+				if (asyncResult.succeeded()) {
+					HttpResponse<?> httpResponse = asyncResult.result();
+
+					if (httpResponse.statusCode() ==
+							HttpResponseStatus.NOT_MODIFIED.code()) {
+
+						_updateSnapshot(snapshot, null, handler);
+
+						return;
+					}
+				}
+
 				HttpResponse<?> httpResponse = _handleHttpResponse(
 					asyncResult, handler);
 
@@ -232,78 +300,189 @@ public class AirNowMeasurementServiceImpl implements MeasurementService {
 					return;
 				}
 
-				_reportingAreaETag = httpResponse.getHeader(
-					HttpHeaders.ETAG.toString());
+				parseFuture.setHandler(
+					parseAsyncResult -> {
+						if (parseAsyncResult.failed()) {
+							handler.handle(
+								Future.failedFuture(parseAsyncResult.cause()));
+
+							return;
+						}
+
+						if (_logger.isDebugEnabled()) {
+							_logDebug(
+								decompressingWriteStream, airNowTimeDecoder);
+						}
+
+						AirNowSnapshot newSnapshot =
+							airNowSnapshotBuilder.build(
+								httpResponse.getHeader(
+									HttpHeaders.ETAG.toString()),
+								httpResponse.getHeader(
+									HttpHeaders.LAST_MODIFIED.toString()),
+								System.currentTimeMillis());
+
+						_updateSnapshot(snapshot, newSnapshot, handler);
+					});
+			});
+	}
 
-				if (_logger.isDebugEnabled()) {
-					_logger.debug(
-						"Reporting area records updated with ETag {0}",
-						_reportingAreaETag);
-				}
+	private void _logDebug(
+		DecompressingWriteStream decompressingWriteStream,
+		AirNowTimeDecoder airNowTimeDecoder) {
+
+		_logger.debug(
+			"Downloaded reporting area records with {0} bytes transferred " +
+				"and {1} bytes decompressed",
+			decompressingWriteStream.getCompressedBytes(),
+			decompressingWriteStream.getDecompressedBytes());
+		_logger.debug(
+			"Decoded reporting area times with {0} cache hits and {1} misses",
+			airNowTimeDecoder.getHits(), airNowTimeDecoder.getMisses());
+	}
 
-				handler.handle(Future.succeededFuture());
+	private void _refresh(Handler<AsyncResult<Void>> handler) {
+		_initReportingAreaRecords(
+			asyncResult -> {
+				_scheduleRefresh();
+
+				handler.handle(asyncResult);
 			});
 	}
 
-	private String _parsePollutant(String pollutant) {
-		if (pollutant.equalsIgnoreCase("ozone")) {
-			pollutant = "o3";
+	private void _scheduleRefresh() {
+		if (_refreshTimerId != -1) {
+			_vertx.cancelTimer(_refreshTimerId);
 		}
-		else if (pollutant.equalsIgnoreCase("pm2.5")) {
-			pollutant = "pm25";
+
+		long now = System.currentTimeMillis();
+
+		long delay = _adaptivePollingPolicy.getDelay(now);
+
+		_nextPollTime = now + delay;
+
+		_refreshTimerId = _vertx.setTimer(
+			delay,
+			timerId -> {
+				_refreshTimerId = -1;
+
+				_refresh(
+					asyncResult -> {
+						if (asyncResult.failed()) {
+							_logger.error(
+								"Unable to refresh reporting area records",
+								asyncResult.cause());
+						}
+					});
+			});
+
+		if (_logger.isDebugEnabled()) {
+			_logger.debug(
+				"Next reporting area records refresh scheduled in {0} ms",
+				delay);
+		}
+	}
+
+	private void _updateSnapshot(
+		AirNowSnapshot oldSnapshot, AirNowSnapshot newSnapshot,
+		Handler<AsyncResult<Void>> handler) {
+
+		if ((newSnapshot == null) ||
+			(StringUtils.isNotBlank(newSnapshot.getETag()) &&
+			 newSnapshot.getETag().equals(oldSnapshot.getETag()))) {
+
+			_adaptivePollingPolicy.onNoChange();
+
+			if (_logger.isDebugEnabled()) {
+				_logger.debug(
+					"Reporting area records are already up-to-date with " +
+						"ETag {0}",
+					oldSnapshot.getETag());
+			}
 		}
 		else {
-			pollutant = pollutant.toLowerCase();
+			_snapshot = newSnapshot;
+
+			_airNowHistory.add(newSnapshot);
+
+			_adaptivePollingPolicy.onChange(newSnapshot.getBuildTime());
+
+			if (_logger.isDebugEnabled()) {
+				_logger.debug(
+					"Reporting area records updated with ETag {0}",
+					newSnapshot.getETag());
+			}
+
+			if (_snapshotPath != null) {
+				_writeSnapshot(newSnapshot);
+			}
 		}
 
-		return pollutant;
+		handler.handle(Future.succeededFuture());
+	}
+
+	private void _writeSnapshot(AirNowSnapshot snapshot) {
+		_vertx.<Void>executeBlocking(
+			future -> {
+				try {
+					AirNowSnapshotSerializer.write(_snapshotPath, snapshot);
+
+					future.complete();
+				}
+				catch (Exception e) {
+					future.fail(e);
+				}
+			},
+			asyncResult -> {
+				if (asyncResult.failed()) {
+					_logger.error(
+						"Unable to write reporting area records to {0}",
+						asyncResult.cause(), _snapshotPath);
+				}
+			});
 	}
 
-	private long _parseTime(
-		String dateString, String timeString, String timeZoneString) {
+	private static final String _ACCEPT_ENCODING = "gzip";
 
-		int year = Integer.parseInt(dateString.substring(6)) + 2000;
-		int month = Integer.parseInt(dateString.substring(0, 2));
-		int dayOfMonth = Integer.parseInt(dateString.substring(3, 5));
-		int hour = Integer.parseInt(
-			timeString.substring(0, timeString.length() - 3));
-		int minute = Integer.parseInt(
-			timeString.substring(timeString.length() - 2));
+	private static final int _HISTORY_CAPACITY = 72;
 
-		ZoneId zoneId = ZoneId.of(timeZoneString, _shortZoneIds);
+	private static final long _HISTORY_MAX_AGE = TimeUnit.HOURS.toMillis(2);
 
-		ZonedDateTime zonedDateTime = ZonedDateTime.of(
-			year, month, dayOfMonth, hour, minute, 0, 0, zoneId);
+	/**
+	 * Observations are published hourly, within the refresh window that
+	 * follows the end of the hour they refer to, so each one is current until
+	 * the end of the next hour's window.
+	 */
+	private static final long _MEASUREMENT_FRESHNESS_PERIOD =
+		TimeUnit.MINUTES.toMillis(135);
 
-		Instant instant = zonedDateTime.toInstant();
+	private static final long _REFRESH_PERIOD = TimeUnit.HOURS.toMillis(1);
 
-		return instant.toEpochMilli();
-	}
+	private static final long _REFRESH_WINDOW_AFTER =
+		TimeUnit.MINUTES.toMillis(15);
+
+	private static final long _REFRESH_WINDOW_BEFORE =
+		TimeUnit.MINUTES.toMillis(5);
 
 	private static final String _REPORTING_AREA_URI =
 		"/airnow/today/reportingarea.dat";
 
+	private static final int _STRING_POOL_MAX_SIZE = 65536;
+
 	private static Logger _logger = LoggerFactory.getLogger(
 		AirNowMeasurementServiceImpl.class);
 
-	private static final Map<String, String> _shortZoneIds;
-
-	static {
-		_shortZoneIds = new HashMap<>(ZoneId.SHORT_IDS);
-
-		_shortZoneIds.put("ADT", "US/Alaska");
-		_shortZoneIds.put("CDT", "America/Chicago");
-		_shortZoneIds.put("COT", "America/Bogota");
-		_shortZoneIds.put("EDT", "America/New_York");
-		_shortZoneIds.put("MDT", "America/Denver");
-		_shortZoneIds.put("PDT", "America/Los_Angeles");
-	}
-
-	private final Map<String, Location> _reportingAreaCoordinates =
-		new HashMap<>();
-	private String _reportingAreaETag;
-	private final Map<String, Measurement> _reportingAreaMeasurements =
-		new HashMap<>();
+	private final AdaptivePollingPolicy _adaptivePollingPolicy;
+	private final AirNowHistory _airNowHistory = new AirNowHistory(
+		_HISTORY_CAPACITY, _HISTORY_MAX_AGE);
+	private long _nextPollTime;
+	private long _refreshTimerId = -1;
+	private volatile AirNowSnapshot _snapshot = AirNowSnapshot.EMPTY;
+	private final Path _snapshotPath;
+	private final StringPool _stringPool = new StringPool(
+		_STRING_POOL_MAX_SIZE);
+	private final Vertx _vertx;
 	private final WebClient _webClient;
+	private final WebClientMonitor _webClientMonitor;
 
 }
\ No newline at end of file
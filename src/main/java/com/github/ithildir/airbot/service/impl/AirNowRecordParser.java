@@ -0,0 +1,237 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.service.impl;
+
+import com.github.ithildir.airbot.model.Measurement;
+import com.github.ithildir.airbot.util.BufferUtil;
+import com.github.ithildir.airbot.util.StringPool;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parses the pipe-delimited reporting area records of AirNow by scanning the
+ * bytes of each record, so that the rows that are discarded never allocate
+ * anything. Primary observations and forecasts are collected in the same
+ * pass, except for forecasts that give only the AQI category and no value.
+ * Strings of the rows that are kept come from a {@link StringPool} shared
+ * across downloads, and pollutant codes are canonical instances.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class AirNowRecordParser implements Handler<Buffer> {
+
+	public AirNowRecordParser(
+		AirNowSnapshotBuilder airNowSnapshotBuilder,
+		AirNowTimeDecoder airNowTimeDecoder, StringPool stringPool) {
+
+		_airNowSnapshotBuilder = airNowSnapshotBuilder;
+		_airNowTimeDecoder = airNowTimeDecoder;
+		_stringPool = stringPool;
+	}
+
+	@Override
+	public void handle(Buffer buffer) {
+		int fieldsCount = _split(buffer);
+
+		if (fieldsCount == 0) {
+			return;
+		}
+
+		if (fieldsCount <= _FIELD_AQI) {
+			throw new IllegalArgumentException(
+				"Invalid reporting area record " + buffer);
+		}
+
+		byte dataType = _getDataType(buffer);
+
+		if (((dataType != 'F') && (dataType != 'O')) || !_isPrimary(buffer) ||
+			_isBlank(buffer, _FIELD_STATE_CODE)) {
+
+			return;
+		}
+
+		if ((dataType == 'F') && _isBlank(buffer, _FIELD_AQI)) {
+			return;
+		}
+
+		long time = _airNowTimeDecoder.decode(
+			buffer, _getStart(_FIELD_VALID_DATE), _getEnd(_FIELD_TIME_ZONE));
+		String reportingArea = _getString(buffer, _FIELD_REPORTING_AREA);
+		double latitude = BufferUtil.parseDouble(
+			buffer, _getStart(_FIELD_LATITUDE), _getEnd(_FIELD_LATITUDE));
+		double longitude = BufferUtil.parseDouble(
+			buffer, _getStart(_FIELD_LONGITUDE), _getEnd(_FIELD_LONGITUDE));
+		String mainPollutant = _parsePollutant(buffer);
+		int aqi = BufferUtil.parseInt(
+			buffer, _getStart(_FIELD_AQI), _getEnd(_FIELD_AQI));
+
+		String comments = null;
+
+		if ((fieldsCount > _FIELD_DISCUSSION) &&
+			!_isBlank(buffer, _FIELD_DISCUSSION)) {
+
+			comments = _getString(buffer, _FIELD_DISCUSSION);
+		}
+
+		Measurement measurement = new Measurement(
+			reportingArea, time, aqi, mainPollutant, Collections.emptyMap(),
+			comments);
+
+		if (dataType == 'F') {
+			_airNowSnapshotBuilder.addForecast(
+				reportingArea, latitude, longitude, measurement);
+		}
+		else {
+			_airNowSnapshotBuilder.addObservation(
+				reportingArea, latitude, longitude, measurement);
+		}
+	}
+
+	private byte _getDataType(Buffer buffer) {
+		int start = _getStart(_FIELD_DATA_TYPE);
+
+		if ((_getEnd(_FIELD_DATA_TYPE) - start) != 1) {
+			return 0;
+		}
+
+		return buffer.getByte(start);
+	}
+
+	private int _getEnd(int field) {
+		return _separators[field + 1];
+	}
+
+	private int _getStart(int field) {
+		return _separators[field] + 1;
+	}
+
+	private String _getString(Buffer buffer, int field) {
+		return _stringPool.get(buffer, _getStart(field), _getEnd(field));
+	}
+
+	private boolean _isBlank(Buffer buffer, int field) {
+		return BufferUtil.isBlank(buffer, _getStart(field), _getEnd(field));
+	}
+
+	private boolean _isPrimary(Buffer buffer) {
+		int start = _getStart(_FIELD_PRIMARY);
+		int end = _getEnd(_FIELD_PRIMARY);
+
+		if (BufferUtil.equalsIgnoreCase(buffer, start, end, "y") ||
+			BufferUtil.equalsIgnoreCase(buffer, start, end, "yes") ||
+			BufferUtil.equalsIgnoreCase(buffer, start, end, "true")) {
+
+			return true;
+		}
+
+		return false;
+	}
+
+	private String _parsePollutant(Buffer buffer) {
+		int start = _getStart(_FIELD_PARAMETER);
+		int end = _getEnd(_FIELD_PARAMETER);
+
+		if (BufferUtil.equalsIgnoreCase(buffer, start, end, "ozone")) {
+			return "o3";
+		}
+		else if (BufferUtil.equalsIgnoreCase(buffer, start, end, "pm2.5")) {
+			return "pm25";
+		}
+
+		String pollutant = _stringPool.get(buffer, start, end);
+
+		return _pollutants.computeIfAbsent(pollutant, String::toLowerCase);
+	}
+
+	private int _split(Buffer buffer) {
+		int end = buffer.length();
+
+		while ((end > 0) && (buffer.getByte(end - 1) == '\r')) {
+			end--;
+		}
+
+		if (end == 0) {
+			return 0;
+		}
+
+		int fieldsCount = 0;
+
+		_separators[0] = -1;
+
+		for (int i = 0; (i < end) && (fieldsCount < _MAX_FIELDS); i++) {
+			if (buffer.getByte(i) == '|') {
+				fieldsCount++;
+
+				_separators[fieldsCount] = i;
+			}
+		}
+
+		if (fieldsCount < _MAX_FIELDS) {
+			fieldsCount++;
+
+			_separators[fieldsCount] = end;
+		}
+
+		return fieldsCount;
+	}
+
+	private static final int _FIELD_AQI = 12;
+
+	private static final int _FIELD_DATA_TYPE = 5;
+
+	private static final int _FIELD_DISCUSSION = 15;
+
+	private static final int _FIELD_LATITUDE = 9;
+
+	private static final int _FIELD_LONGITUDE = 10;
+
+	private static final int _FIELD_PARAMETER = 11;
+
+	private static final int _FIELD_PRIMARY = 6;
+
+	private static final int _FIELD_REPORTING_AREA = 7;
+
+	private static final int _FIELD_STATE_CODE = 8;
+
+	private static final int _FIELD_TIME_ZONE = 3;
+
+	private static final int _FIELD_VALID_DATE = 1;
+
+	private static final int _FIELD_VALID_TIME = 2;
+
+	private static final int _MAX_FIELDS = 17;
+
+	private static final Map<String, String> _pollutants =
+		new ConcurrentHashMap<>();
+
+	private final AirNowSnapshotBuilder _airNowSnapshotBuilder;
+	private final AirNowTimeDecoder _airNowTimeDecoder;
+	private final int[] _separators = new int[_MAX_FIELDS + 1];
+	private final StringPool _stringPool;
+
+}
\ No newline at end of file
@@ -0,0 +1,218 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.service.impl;
+
+import com.github.ithildir.airbot.model.Measurement;
+import com.github.ithildir.airbot.util.GeoIndex;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable view of the AirNow reporting areas, built from a single download
+ * of the reporting area records. Reporting areas are stored in parallel
+ * columns, and the position of a reporting area in the columns is its ID
+ * within the snapshot. A reporting area can have a current observation,
+ * daily forecasts, or both, and each kind of record has its own index.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class AirNowSnapshot {
+
+	public static final AirNowSnapshot EMPTY = new AirNowSnapshot(
+		new String[0], new double[0], new double[0], new Measurement[0],
+		new Measurement[0][], null, null, 0);
+
+	public AirNowSnapshot(
+		String[] reportingAreas, double[] latitudes, double[] longitudes,
+		Measurement[] measurements, Measurement[][] forecasts, String etag,
+		String lastModified, long buildTime) {
+
+		_reportingAreas = reportingAreas;
+		_latitudes = latitudes;
+		_longitudes = longitudes;
+		_measurements = measurements;
+		_forecasts = forecasts;
+		_etag = etag;
+		_lastModified = lastModified;
+		_buildTime = buildTime;
+
+		_measurementReportingAreaIds = _getReportingAreaIds(measurements);
+
+		_measurementIndex = _createIndex(_measurementReportingAreaIds);
+
+		_forecastReportingAreaIds = _getReportingAreaIds(forecasts);
+
+		_forecastIndex = _createIndex(_forecastReportingAreaIds);
+	}
+
+	public long getBuildTime() {
+		return _buildTime;
+	}
+
+	public String getETag() {
+		return _etag;
+	}
+
+	/**
+	 * Returns the forecast of the reporting area nearest to the given
+	 * coordinates for the day that contains the given time, or
+	 * <code>null</code> if it is not available.
+	 */
+	public Measurement getForecast(
+		double latitude, double longitude, long time) {
+
+		int i = _forecastIndex.getNearest(latitude, longitude);
+
+		if (i < 0) {
+			return null;
+		}
+
+		Measurement[] forecasts = _forecasts[_forecastReportingAreaIds[i]];
+
+		for (int j = forecasts.length - 1; j >= 0; j--) {
+			Measurement forecast = forecasts[j];
+
+			long forecastTime = forecast.getTime();
+
+			if (forecastTime <= time) {
+				if ((time - forecastTime) < _DAY) {
+					return forecast;
+				}
+
+				break;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the daily forecasts of the given reporting area, sorted by
+	 * time, or <code>null</code> if there are none.
+	 */
+	public Measurement[] getForecasts(int reportingAreaId) {
+		return _forecasts[reportingAreaId];
+	}
+
+	public String getLastModified() {
+		return _lastModified;
+	}
+
+	public double getLatitude(int reportingAreaId) {
+		return _latitudes[reportingAreaId];
+	}
+
+	public double getLongitude(int reportingAreaId) {
+		return _longitudes[reportingAreaId];
+	}
+
+	public Measurement getMeasurement(double latitude, double longitude) {
+		int reportingAreaId = getReportingAreaId(latitude, longitude);
+
+		if (reportingAreaId < 0) {
+			return null;
+		}
+
+		return _measurements[reportingAreaId];
+	}
+
+	/**
+	 * Returns the current observation of the given reporting area, or
+	 * <code>null</code> if there is none.
+	 */
+	public Measurement getMeasurement(int reportingAreaId) {
+		return _measurements[reportingAreaId];
+	}
+
+	public String getReportingArea(int reportingAreaId) {
+		return _reportingAreas[reportingAreaId];
+	}
+
+	/**
+	 * Returns the ID of the reporting area with a current observation nearest
+	 * to the given coordinates, or <code>-1</code> if there are none.
+	 */
+	public int getReportingAreaId(double latitude, double longitude) {
+		int i = _measurementIndex.getNearest(latitude, longitude);
+
+		if (i < 0) {
+			return -1;
+		}
+
+		return _measurementReportingAreaIds[i];
+	}
+
+	public int size() {
+		return _reportingAreas.length;
+	}
+
+	private GeoIndex _createIndex(int[] reportingAreaIds) {
+		double[] latitudes = new double[reportingAreaIds.length];
+		double[] longitudes = new double[reportingAreaIds.length];
+
+		for (int i = 0; i < reportingAreaIds.length; i++) {
+			latitudes[i] = _latitudes[reportingAreaIds[i]];
+			longitudes[i] = _longitudes[reportingAreaIds[i]];
+		}
+
+		return new GeoIndex(latitudes, longitudes);
+	}
+
+	private static int[] _getReportingAreaIds(Object[] values) {
+		int size = 0;
+
+		for (Object value : values) {
+			if (value != null) {
+				size++;
+			}
+		}
+
+		int[] reportingAreaIds = new int[size];
+
+		size = 0;
+
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) {
+				reportingAreaIds[size++] = i;
+			}
+		}
+
+		return reportingAreaIds;
+	}
+
+	private static final long _DAY = TimeUnit.DAYS.toMillis(1);
+
+	private final long _buildTime;
+	private final String _etag;
+	private final GeoIndex _forecastIndex;
+	private final int[] _forecastReportingAreaIds;
+	private final Measurement[][] _forecasts;
+	private final String _lastModified;
+	private final double[] _latitudes;
+	private final double[] _longitudes;
+	private final GeoIndex _measurementIndex;
+	private final int[] _measurementReportingAreaIds;
+	private final Measurement[] _measurements;
+	private final String[] _reportingAreas;
+
+}
\ No newline at end of file
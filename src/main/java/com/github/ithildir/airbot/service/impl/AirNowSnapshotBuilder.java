@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.service.impl;
+
+import com.github.ithildir.airbot.model.Measurement;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects the observations and the daily forecasts of a single download into
+ * growing columns. Instances are not thread-safe, but they are never shared with
+ * readers: the collected records become visible only through the {@link
+ * AirNowSnapshot} returned by {@link #build(String, String, long)}.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class AirNowSnapshotBuilder {
+
+	public void addForecast(
+		String reportingArea, double latitude, double longitude,
+		Measurement forecast) {
+
+		int reportingAreaId = _getReportingAreaId(
+			reportingArea, latitude, longitude);
+
+		Measurement[] forecasts = _forecasts[reportingAreaId];
+
+		if (forecasts == null) {
+			_forecasts[reportingAreaId] = new Measurement[] {forecast};
+
+			return;
+		}
+
+		int i = 0;
+
+		while ((i < forecasts.length) &&
+			   (forecasts[i].getTime() < forecast.getTime())) {
+
+			i++;
+		}
+
+		if ((i < forecasts.length) &&
+			(forecasts[i].getTime() == forecast.getTime())) {
+
+			forecasts[i] = forecast;
+
+			return;
+		}
+
+		Measurement[] newForecasts = new Measurement[forecasts.length + 1];
+
+		System.arraycopy(forecasts, 0, newForecasts, 0, i);
+		System.arraycopy(
+			forecasts, i, newForecasts, i + 1, forecasts.length - i);
+
+		newForecasts[i] = forecast;
+
+		_forecasts[reportingAreaId] = newForecasts;
+	}
+
+	public void addObservation(
+		String reportingArea, double latitude, double longitude,
+		Measurement measurement) {
+
+		int reportingAreaId = _getReportingAreaId(
+			reportingArea, latitude, longitude);
+
+		_measurements[reportingAreaId] = measurement;
+	}
+
+	public AirNowSnapshot build(
+		String etag, String lastModified, long buildTime) {
+
+		return new AirNowSnapshot(
+			Arrays.copyOf(_reportingAreas, _size),
+			Arrays.copyOf(_latitudes, _size), Arrays.copyOf(_longitudes, _size),
+			Arrays.copyOf(_measurements, _size),
+			Arrays.copyOf(_forecasts, _size), etag, lastModified, buildTime);
+	}
+
+	private int _getReportingAreaId(
+		String reportingArea, double latitude, double longitude) {
+
+		Integer reportingAreaId = _reportingAreaIds.get(reportingArea);
+
+		if (reportingAreaId == null) {
+			reportingAreaId = _size;
+
+			_reportingAreaIds.put(reportingArea, reportingAreaId);
+
+			if (_size == _reportingAreas.length) {
+				_grow();
+			}
+
+			_size++;
+		}
+
+		_reportingAreas[reportingAreaId] = reportingArea;
+		_latitudes[reportingAreaId] = latitude;
+		_longitudes[reportingAreaId] = longitude;
+
+		return reportingAreaId;
+	}
+
+	private void _grow() {
+		int capacity = _reportingAreas.length * 2;
+
+		_reportingAreas = Arrays.copyOf(_reportingAreas, capacity);
+		_latitudes = Arrays.copyOf(_latitudes, capacity);
+		_longitudes = Arrays.copyOf(_longitudes, capacity);
+		_measurements = Arrays.copyOf(_measurements, capacity);
+		_forecasts = Arrays.copyOf(_forecasts, capacity);
+	}
+
+	private static final int _INITIAL_CAPACITY = 512;
+
+	private Measurement[][] _forecasts = new Measurement[_INITIAL_CAPACITY][];
+	private double[] _latitudes = new double[_INITIAL_CAPACITY];
+	private double[] _longitudes = new double[_INITIAL_CAPACITY];
+	private Measurement[] _measurements = new Measurement[_INITIAL_CAPACITY];
+	private final Map<String, Integer> _reportingAreaIds = new HashMap<>();
+	private String[] _reportingAreas = new String[_INITIAL_CAPACITY];
+	private int _size;
+
+}
\ No newline at end of file
@@ -0,0 +1,335 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.service.impl;
+
+import com.github.ithildir.airbot.model.Measurement;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import java.util.Collections;
+
+/**
+ * Stores {@link AirNowSnapshot} instances in a versioned binary file. After a
+ * short header, numeric values are laid out in columns, followed by the string
+ * columns and by the daily forecasts of each reporting area, so that the file
+ * can be read back by mapping it in memory.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class AirNowSnapshotSerializer {
+
+	public static AirNowSnapshot read(Path path) throws IOException {
+		if (Files.notExists(path)) {
+			return null;
+		}
+
+		try (FileChannel fileChannel = FileChannel.open(
+				path, StandardOpenOption.READ)) {
+
+			MappedByteBuffer mappedByteBuffer = fileChannel.map(
+				FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+
+			return _read(mappedByteBuffer);
+		}
+	}
+
+	public static void write(Path path, AirNowSnapshot airNowSnapshot)
+		throws IOException {
+
+		Path dirPath = path.toAbsolutePath().getParent();
+
+		Files.createDirectories(dirPath);
+
+		Path tempPath = Files.createTempFile(
+			dirPath, String.valueOf(path.getFileName()), null);
+
+		try {
+			try (OutputStream outputStream = Files.newOutputStream(tempPath);
+				DataOutputStream dataOutputStream = new DataOutputStream(
+					new BufferedOutputStream(outputStream))) {
+
+				_write(dataOutputStream, airNowSnapshot);
+			}
+
+			Files.move(
+				tempPath, path, StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING);
+		}
+		finally {
+			Files.deleteIfExists(tempPath);
+		}
+	}
+
+	private static Measurement _getMeasurement(
+		AirNowSnapshot airNowSnapshot, int reportingAreaId) {
+
+		Measurement measurement = airNowSnapshot.getMeasurement(
+			reportingAreaId);
+
+		if (measurement == null) {
+			measurement = _EMPTY_MEASUREMENT;
+		}
+
+		return measurement;
+	}
+
+	private static AirNowSnapshot _read(ByteBuffer byteBuffer)
+		throws IOException {
+
+		if (byteBuffer.getInt() != _MAGIC) {
+			throw new IOException("Invalid AirNow snapshot file");
+		}
+
+		int version = byteBuffer.getInt();
+
+		if (version != _VERSION) {
+			throw new IOException(
+				"Unsupported AirNow snapshot file version " + version);
+		}
+
+		long buildTime = byteBuffer.getLong();
+		String etag = _readString(byteBuffer);
+		String lastModified = _readString(byteBuffer);
+
+		int size = byteBuffer.getInt();
+
+		double[] latitudes = new double[size];
+		double[] longitudes = new double[size];
+		byte[] flags = new byte[size];
+		long[] times = new long[size];
+		int[] aqis = new int[size];
+		int[] forecastCounts = new int[size];
+
+		byteBuffer.asDoubleBuffer().get(latitudes);
+
+		byteBuffer.position(byteBuffer.position() + size * Double.BYTES);
+
+		byteBuffer.asDoubleBuffer().get(longitudes);
+
+		byteBuffer.position(byteBuffer.position() + size * Double.BYTES);
+
+		byteBuffer.get(flags);
+
+		byteBuffer.asLongBuffer().get(times);
+
+		byteBuffer.position(byteBuffer.position() + size * Long.BYTES);
+
+		byteBuffer.asIntBuffer().get(aqis);
+
+		byteBuffer.position(byteBuffer.position() + size * Integer.BYTES);
+
+		byteBuffer.asIntBuffer().get(forecastCounts);
+
+		byteBuffer.position(byteBuffer.position() + size * Integer.BYTES);
+
+		String[] reportingAreas = _readStrings(byteBuffer, size);
+		String[] mainPollutants = _readStrings(byteBuffer, size);
+		String[] comments = _readStrings(byteBuffer, size);
+
+		Measurement[] measurements = new Measurement[size];
+
+		for (int i = 0; i < size; i++) {
+			if ((flags[i] & _FLAG_MEASUREMENT) != 0) {
+				measurements[i] = new Measurement(
+					reportingAreas[i], times[i], aqis[i], mainPollutants[i],
+					Collections.emptyMap(), comments[i]);
+			}
+		}
+
+		Measurement[][] forecasts = new Measurement[size][];
+
+		for (int i = 0; i < size; i++) {
+			if (forecastCounts[i] == 0) {
+				continue;
+			}
+
+			forecasts[i] = new Measurement[forecastCounts[i]];
+
+			for (int j = 0; j < forecastCounts[i]; j++) {
+				long time = byteBuffer.getLong();
+				int aqi = byteBuffer.getInt();
+				String mainPollutant = _readString(byteBuffer);
+				String forecastComments = _readString(byteBuffer);
+
+				forecasts[i][j] = new Measurement(
+					reportingAreas[i], time, aqi, mainPollutant,
+					Collections.emptyMap(), forecastComments);
+			}
+		}
+
+		return new AirNowSnapshot(
+			reportingAreas, latitudes, longitudes, measurements, forecasts,
+			etag, lastModified, buildTime);
+	}
+
+	private static String _readString(ByteBuffer byteBuffer) {
+		int length = byteBuffer.getInt();
+
+		if (length < 0) {
+			return null;
+		}
+
+		byte[] bytes = new byte[length];
+
+		byteBuffer.get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static String[] _readStrings(ByteBuffer byteBuffer, int size) {
+		String[] strings = new String[size];
+
+		for (int i = 0; i < size; i++) {
+			strings[i] = _readString(byteBuffer);
+		}
+
+		return strings;
+	}
+
+	private static void _write(
+			DataOutputStream dataOutputStream, AirNowSnapshot airNowSnapshot)
+		throws IOException {
+
+		int size = airNowSnapshot.size();
+
+		dataOutputStream.writeInt(_MAGIC);
+		dataOutputStream.writeInt(_VERSION);
+		dataOutputStream.writeLong(airNowSnapshot.getBuildTime());
+
+		_writeString(dataOutputStream, airNowSnapshot.getETag());
+		_writeString(dataOutputStream, airNowSnapshot.getLastModified());
+
+		dataOutputStream.writeInt(size);
+
+		for (int i = 0; i < size; i++) {
+			dataOutputStream.writeDouble(airNowSnapshot.getLatitude(i));
+		}
+
+		for (int i = 0; i < size; i++) {
+			dataOutputStream.writeDouble(airNowSnapshot.getLongitude(i));
+		}
+
+		for (int i = 0; i < size; i++) {
+			byte flags = 0;
+
+			if (airNowSnapshot.getMeasurement(i) != null) {
+				flags |= _FLAG_MEASUREMENT;
+			}
+
+			dataOutputStream.writeByte(flags);
+		}
+
+		for (int i = 0; i < size; i++) {
+			Measurement measurement = _getMeasurement(airNowSnapshot, i);
+
+			dataOutputStream.writeLong(measurement.getTime());
+		}
+
+		for (int i = 0; i < size; i++) {
+			Measurement measurement = _getMeasurement(airNowSnapshot, i);
+
+			dataOutputStream.writeInt(measurement.getAqi());
+		}
+
+		for (int i = 0; i < size; i++) {
+			Measurement[] forecasts = airNowSnapshot.getForecasts(i);
+
+			if (forecasts == null) {
+				dataOutputStream.writeInt(0);
+			}
+			else {
+				dataOutputStream.writeInt(forecasts.length);
+			}
+		}
+
+		for (int i = 0; i < size; i++) {
+			_writeString(dataOutputStream, airNowSnapshot.getReportingArea(i));
+		}
+
+		for (int i = 0; i < size; i++) {
+			Measurement measurement = _getMeasurement(airNowSnapshot, i);
+
+			_writeString(dataOutputStream, measurement.getMainPollutant());
+		}
+
+		for (int i = 0; i < size; i++) {
+			Measurement measurement = _getMeasurement(airNowSnapshot, i);
+
+			_writeString(dataOutputStream, measurement.getComments());
+		}
+
+		for (int i = 0; i < size; i++) {
+			Measurement[] forecasts = airNowSnapshot.getForecasts(i);
+
+			if (forecasts == null) {
+				continue;
+			}
+
+			for (Measurement forecast : forecasts) {
+				dataOutputStream.writeLong(forecast.getTime());
+				dataOutputStream.writeInt(forecast.getAqi());
+
+				_writeString(dataOutputStream, forecast.getMainPollutant());
+				_writeString(dataOutputStream, forecast.getComments());
+			}
+		}
+	}
+
+	private static void _writeString(
+			DataOutputStream dataOutputStream, String s)
+		throws IOException {
+
+		if (s == null) {
+			dataOutputStream.writeInt(-1);
+
+			return;
+		}
+
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+
+		dataOutputStream.writeInt(bytes.length);
+		dataOutputStream.write(bytes);
+	}
+
+	private static final Measurement _EMPTY_MEASUREMENT = new Measurement(
+		null, 0, 0, null, Collections.emptyMap(), null);
+
+	private static final byte _FLAG_MEASUREMENT = 1;
+
+	private static final int _MAGIC = 0x41495242;
+
+	private static final int _VERSION = 2;
+
+}
\ No newline at end of file
@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.service.impl;
+
+import com.github.ithildir.airbot.util.BufferUtil;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decodes the "MM/dd/yy|HH:mm|zone" columns of the AirNow records to epoch
+ * milliseconds. Since a file contains only a handful of distinct values,
+ * decoded times are cached by their raw bytes in a small direct-mapped table.
+ * Instances are not thread-safe.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class AirNowTimeDecoder {
+
+	public long decode(Buffer buffer, int start, int end) {
+		int hash = BufferUtil.hash(buffer, start, end);
+
+		int slot = hash & (_CACHE_SIZE - 1);
+
+		byte[] key = _keys[slot];
+
+		if ((key != null) && (_hashes[slot] == hash) &&
+			BufferUtil.equals(buffer, start, end, key)) {
+
+			_hits++;
+
+			return _times[slot];
+		}
+
+		_misses++;
+
+		long time = _decode(buffer, start, end);
+
+		_hashes[slot] = hash;
+		_keys[slot] = buffer.getBytes(start, end);
+		_times[slot] = time;
+
+		return time;
+	}
+
+	public long getHits() {
+		return _hits;
+	}
+
+	public long getMisses() {
+		return _misses;
+	}
+
+	private static ZoneId _getZoneId(String timeZone) {
+		ZoneId zoneId = _zoneIds.get(timeZone);
+
+		if (zoneId == null) {
+			zoneId = ZoneId.of(timeZone, _shortZoneIds);
+		}
+
+		return zoneId;
+	}
+
+	private static int _indexOf(Buffer buffer, int start, int end, byte b) {
+		for (int i = start; i < end; i++) {
+			if (buffer.getByte(i) == b) {
+				return i;
+			}
+		}
+
+		throw new IllegalArgumentException(
+			"Invalid time " + buffer.getString(start, end));
+	}
+
+	private long _decode(Buffer buffer, int start, int end) {
+		int dateEnd = _indexOf(buffer, start, end, (byte)'|');
+		int timeEnd = _indexOf(buffer, dateEnd + 1, end, (byte)'|');
+
+		int month = BufferUtil.parseInt(buffer, start, start + 2);
+		int dayOfMonth = BufferUtil.parseInt(buffer, start + 3, start + 5);
+		int year = BufferUtil.parseInt(buffer, start + 6, dateEnd) + 2000;
+
+		int hour = 0;
+		int minute = 0;
+
+		if (!BufferUtil.isBlank(buffer, dateEnd + 1, timeEnd)) {
+			hour = BufferUtil.parseInt(buffer, dateEnd + 1, timeEnd - 3);
+			minute = BufferUtil.parseInt(buffer, timeEnd - 2, timeEnd);
+		}
+
+		ZoneId zoneId = _getZoneId(buffer.getString(timeEnd + 1, end));
+
+		ZonedDateTime zonedDateTime = ZonedDateTime.of(
+			year, month, dayOfMonth, hour, minute, 0, 0, zoneId);
+
+		return zonedDateTime.toEpochSecond() * 1000;
+	}
+
+	private static final int _CACHE_SIZE = 64;
+
+	private static final Map<String, String> _shortZoneIds;
+	private static final Map<String, ZoneId> _zoneIds;
+
+	static {
+		_shortZoneIds = new HashMap<>(ZoneId.SHORT_IDS);
+
+		_shortZoneIds.put("ADT", "US/Alaska");
+		_shortZoneIds.put("CDT", "America/Chicago");
+		_shortZoneIds.put("COT", "America/Bogota");
+		_shortZoneIds.put("EDT", "America/New_York");
+		_shortZoneIds.put("MDT", "America/Denver");
+		_shortZoneIds.put("PDT", "America/Los_Angeles");
+
+		Map<String, ZoneId> zoneIds = new HashMap<>();
+
+		for (String timeZone : _shortZoneIds.keySet()) {
+			zoneIds.put(timeZone, ZoneId.of(timeZone, _shortZoneIds));
+		}
+
+		_zoneIds = Collections.unmodifiableMap(zoneIds);
+	}
+
+	private final int[] _hashes = new int[_CACHE_SIZE];
+	private long _hits;
+	private final byte[][] _keys = new byte[_CACHE_SIZE][];
+	private long _misses;
+	private final long[] _times = new long[_CACHE_SIZE];
+
+}
\ No newline at end of file
@@ -24,6 +24,15 @@ package com.github.ithildir.airbot.service.impl;
 
 import com.github.ithildir.airbot.model.Location;
 import com.github.ithildir.airbot.service.GeoService;
+import com.github.ithildir.airbot.util.CoordinateQuantizer;
+import com.github.ithildir.airbot.util.JsonFieldExtractor;
+import com.github.ithildir.airbot.util.LruCache;
+import com.github.ithildir.airbot.util.MetricsProvider;
+import com.github.ithildir.airbot.util.MicroBatcher;
+import com.github.ithildir.airbot.util.QuotaManager;
+import com.github.ithildir.airbot.util.RequestHedger;
+import com.github.ithildir.airbot.util.SingleFlight;
+import com.github.ithildir.airbot.util.WebClientMonitor;
 
 import io.netty.handler.codec.http.HttpResponseStatus;
 
@@ -34,23 +43,42 @@ import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
 import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.serviceproxy.ServiceException;
 
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
 
 /**
  * @author Andrea Di Giorgi
  */
-public class MapQuestGeoServiceImpl implements GeoService {
+public class MapQuestGeoServiceImpl implements GeoService, MetricsProvider {
 
-	public MapQuestGeoServiceImpl(Vertx vertx, String key, boolean open) {
-		_key = Objects.requireNonNull(key);
+	public MapQuestGeoServiceImpl(
+		Vertx vertx, String key, boolean open,
+		WebClientOptions webClientOptions, QuotaManager quotaManager,
+		double reversePrecision, int batchMaxSize, long batchMaxDelay) {
 
-		WebClientOptions webClientOptions = new WebClientOptions();
+		_key = Objects.requireNonNull(key);
+		_quotaManager = quotaManager;
+		_reverseCoordinateQuantizer = new CoordinateQuantizer(
+			reversePrecision);
+		_requestHedger = new RequestHedger(
+			vertx, "MapQuest", _HEDGE_PERCENTILE, _HEDGE_MAX_RATE,
+			quotaManager::tryAcquire);
 
 		String defaultHost = "www.mapquestapi.com";
 
@@ -63,6 +91,10 @@ public class MapQuestGeoServiceImpl implements GeoService {
 		webClientOptions.setSsl(true);
 
 		_webClient = WebClient.create(vertx, webClientOptions);
+		_webClientMonitor = new WebClientMonitor("MapQuest", webClientOptions);
+
+		_addressMicroBatcher = new MicroBatcher<>(
+			vertx, batchMaxSize, batchMaxDelay, this::_getAddressLocations);
 	}
 
 	@Override
@@ -73,24 +105,127 @@ public class MapQuestGeoServiceImpl implements GeoService {
 		HttpRequest<Buffer> httpRequest = _webClient.get(
 			"/geocoding/v1/reverse");
 
-		httpRequest.setQueryParam("location", latitude + "," + longitude);
+		httpRequest.setQueryParam(
+			"location",
+			_reverseCoordinateQuantizer.getCellCenter(latitude, longitude));
 
-		_getLocation(httpRequest, handler);
+		_getLocation(
+			"reverse", _reverseCoordinateQuantizer.getCell(latitude, longitude),
+			_reverseLocationCache,
+			locationHandler -> _getLocation(httpRequest, locationHandler),
+			handler);
 	}
 
 	@Override
 	public void getLocationByQuery(
 		String query, Handler<AsyncResult<Location>> handler) {
 
-		HttpRequest<Buffer> httpRequest = _webClient.get(
-			"/geocoding/v1/address");
+		_getLocation(
+			"address", _normalize(query), _addressLocationCache,
+			locationHandler -> _getAddressLocation(query, locationHandler),
+			handler);
+	}
+
+	@Override
+	public JsonObject getMetrics() {
+		JsonObject jsonObject = new JsonObject();
+
+		jsonObject.put(
+			"addressLocationCache", _addressLocationCache.getMetrics());
+		jsonObject.put(
+			"addressMicroBatcher", _addressMicroBatcher.getMetrics());
+		jsonObject.put(
+			"locationSingleFlight", _locationSingleFlight.getMetrics());
+		jsonObject.put("quota", _quotaManager.getMetrics());
+		jsonObject.put("requestHedger", _requestHedger.getMetrics());
+		jsonObject.put(
+			"reverseLocationCache", _reverseLocationCache.getMetrics());
+		jsonObject.put("webClient", _webClientMonitor.getMetrics());
+
+		return jsonObject;
+	}
+
+	private void _cacheLocation(
+		LruCache<String, Location> locationCache, String key,
+		Location location) {
+
+		long timeToLive = _LOCATION_CACHE_TIME_TO_LIVE;
+
+		if (location == null) {
+			timeToLive = _LOCATION_CACHE_NEGATIVE_TIME_TO_LIVE;
+		}
+
+		long now = System.currentTimeMillis();
+
+		locationCache.put(key, location, now + timeToLive, now);
+	}
+
+	private void _getAddressLocation(
+		String query, Handler<AsyncResult<Location>> handler) {
+
+		_quotaManager.acquire(
+			QuotaManager.PRIORITY_INTERACTIVE,
+			asyncResult -> {
+				if (asyncResult.failed()) {
+					handler.handle(Future.failedFuture(asyncResult.cause()));
+
+					return;
+				}
+
+				_addressMicroBatcher.add(query, handler);
+			});
+	}
+
+	private void _getAddressLocations(
+		List<String> queries, Handler<AsyncResult<List<Location>>> handler) {
+
+		HttpRequest<Buffer> httpRequest;
+
+		if (queries.size() == 1) {
+			httpRequest = _webClient.get("/geocoding/v1/address");
+
+			httpRequest.setQueryParam("location", queries.get(0));
+		}
+		else {
+			httpRequest = _webClient.get("/geocoding/v1/batch");
+
+			for (String query : queries) {
+				httpRequest.addQueryParam("location", query);
+			}
+		}
 
 		httpRequest.setQueryParam("ignoreLatLngInput", "true");
-		httpRequest.setQueryParam("location", query);
+		httpRequest.setQueryParam("key", _key);
 		httpRequest.setQueryParam("maxResults", "1");
 		httpRequest.setQueryParam("thumbMaps", "false");
 
-		_getLocation(httpRequest, handler);
+		if (_logger.isDebugEnabled()) {
+			_logger.debug(
+				"Geocoding {0} addresses, with {1} addresses in {2} batches " +
+					"so far",
+				queries.size(), _addressMicroBatcher.getItemCount(),
+				_addressMicroBatcher.getBatchCount());
+		}
+
+		if (queries.size() == 1) {
+			_requestHedger.execute(
+				locationsHandler -> _sendLocationsRequest(
+					httpRequest, locationsHandler),
+				handler);
+		}
+		else {
+			_sendLocationsRequest(httpRequest, handler);
+		}
+	}
+
+	private JsonObject _getFirstJsonObject(JsonObject jsonObject, String key) {
+		JsonArray jsonArray = jsonObject.getJsonArray(key);
+
+		if ((jsonArray == null) || jsonArray.isEmpty()) {
+			return null;
+		}
+
+		return jsonArray.getJsonObject(0);
 	}
 
 	private void _getLocation(
@@ -99,41 +234,88 @@ public class MapQuestGeoServiceImpl implements GeoService {
 
 		httpRequest.setQueryParam("key", _key);
 
-		httpRequest.send(
+		_quotaManager.acquire(
+			QuotaManager.PRIORITY_INTERACTIVE,
 			asyncResult -> {
-				HttpResponse<Buffer> httpResponse = _handleHttpResponse(
-					asyncResult, handler);
+				if (asyncResult.failed()) {
+					handler.handle(Future.failedFuture(asyncResult.cause()));
 
-				if (httpResponse == null) {
 					return;
 				}
 
-				Location location = _getLocation(
-					httpResponse.bodyAsJsonObject());
-
-				handler.handle(Future.succeededFuture(location));
+				_requestHedger.<List<Location>>execute(
+					locationsHandler -> _sendLocationsRequest(
+						httpRequest, locationsHandler),
+					locationsAsyncResult -> handler.handle(
+						locationsAsyncResult.map(
+							locations -> {
+								if (locations.isEmpty()) {
+									return null;
+								}
+
+								return locations.get(0);
+							})));
 			});
 	}
 
-	private Location _getLocation(JsonObject jsonObject) {
+	private void _getLocation(
+		String type, String key, LruCache<String, Location> locationCache,
+		Handler<Handler<AsyncResult<Location>>> operation,
+		Handler<AsyncResult<Location>> handler) {
+
+		LruCache.Entry<Location> entry = locationCache.getEntry(
+			key, System.currentTimeMillis());
+
+		if (entry != null) {
+			handler.handle(Future.succeededFuture(entry.getValue()));
+
+			return;
+		}
+
+		if (_logger.isDebugEnabled()) {
+			_logger.debug(
+				"Location cache miss for {0} \"{1}\" with {2} hits, {3} " +
+					"misses and {4} evictions",
+				type, key, locationCache.getHitCount(),
+				locationCache.getMissCount(), locationCache.getEvictionCount());
+		}
+
+		_locationSingleFlight.execute(
+			type + ":" + key,
+			locationHandler -> operation.handle(
+				asyncResult -> {
+					if (asyncResult.succeeded()) {
+						_cacheLocation(
+							locationCache, key, asyncResult.result());
+					}
+
+					locationHandler.handle(asyncResult);
+				}),
+			handler);
+	}
+
+	private List<Location> _getLocations(JsonObject jsonObject) {
 		JsonArray resultsJsonArray = jsonObject.getJsonArray("results");
 
-		JsonObject resultJsonObject = resultsJsonArray.getJsonObject(0);
+		if (resultsJsonArray == null) {
+			return Collections.emptyList();
+		}
 
-		JsonArray locationsJsonArray = resultJsonObject.getJsonArray(
-			"locations");
+		List<Location> locations = new ArrayList<>(resultsJsonArray.size());
 
-		JsonObject locationJsonObject = locationsJsonArray.getJsonObject(0);
+		for (int i = 0; i < resultsJsonArray.size(); i++) {
+			JsonObject resultJsonObject = resultsJsonArray.getJsonObject(i);
 
-		JsonObject latLngJsonObject = locationJsonObject.getJsonObject(
-			"latLng");
+			Location location = null;
 
-		double latitude = latLngJsonObject.getDouble("lat");
-		double longitude = latLngJsonObject.getDouble("lng");
+			if (resultJsonObject != null) {
+				location = _toLocation(resultJsonObject);
+			}
 
-		String country = locationJsonObject.getString("adminArea1");
+			locations.add(location);
+		}
 
-		return new Location(latitude, longitude, country);
+		return locations;
 	}
 
 	private <R, T> HttpResponse<T> _handleHttpResponse(
@@ -160,7 +342,100 @@ public class MapQuestGeoServiceImpl implements GeoService {
 		return httpResponse;
 	}
 
+	private String _normalize(String query) {
+		query = StringUtils.stripAccents(query);
+		query = StringUtils.normalizeSpace(query);
+
+		return query.toLowerCase(Locale.ROOT);
+	}
+
+	private void _sendLocationsRequest(
+		HttpRequest<Buffer> httpRequest,
+		Handler<AsyncResult<List<Location>>> handler) {
+
+		_webClientMonitor.send(
+			httpRequest,
+			asyncResult -> {
+				HttpResponse<Buffer> httpResponse = _handleHttpResponse(
+					asyncResult, handler);
+
+				if (httpResponse == null) {
+					return;
+				}
+
+				List<Location> locations;
+
+				try {
+					locations = _getLocations(
+						_jsonFieldExtractor.extract(httpResponse.body()));
+				}
+				catch (IOException ioe) {
+					handler.handle(Future.failedFuture(ioe));
+
+					return;
+				}
+
+				handler.handle(Future.succeededFuture(locations));
+			});
+	}
+
+	private Location _toLocation(JsonObject resultJsonObject) {
+		JsonObject locationJsonObject = _getFirstJsonObject(
+			resultJsonObject, "locations");
+
+		if (locationJsonObject == null) {
+			return null;
+		}
+
+		JsonObject latLngJsonObject = locationJsonObject.getJsonObject(
+			"latLng");
+
+		if (latLngJsonObject == null) {
+			return null;
+		}
+
+		double latitude = latLngJsonObject.getDouble("lat");
+		double longitude = latLngJsonObject.getDouble("lng");
+
+		String country = locationJsonObject.getString("adminArea1");
+
+		return new Location(latitude, longitude, country);
+	}
+
+	private static final int _ADDRESS_LOCATION_CACHE_MAX_SIZE = 1000;
+
+	private static final double _HEDGE_MAX_RATE = 0.02;
+
+	private static final double _HEDGE_PERCENTILE = 0.95;
+
+	private static final long _LOCATION_CACHE_NEGATIVE_TIME_TO_LIVE =
+		TimeUnit.HOURS.toMillis(1);
+
+	private static final long _LOCATION_CACHE_TIME_TO_LIVE =
+		TimeUnit.DAYS.toMillis(7);
+
+	private static final int _REVERSE_LOCATION_CACHE_MAX_SIZE = 10000;
+
+	private static final JsonFieldExtractor _jsonFieldExtractor =
+		new JsonFieldExtractor(
+			"results.*.locations.0.adminArea1",
+			"results.*.locations.0.latLng");
+
+	private static final Logger _logger = LoggerFactory.getLogger(
+		MapQuestGeoServiceImpl.class);
+
+	private final LruCache<String, Location> _addressLocationCache =
+		new LruCache<>(_ADDRESS_LOCATION_CACHE_MAX_SIZE);
+	private final MicroBatcher<String, Location> _addressMicroBatcher;
 	private final String _key;
+	private final SingleFlight<String, Location> _locationSingleFlight =
+		new SingleFlight<>();
+	private final QuotaManager _quotaManager;
+	private final RequestHedger _requestHedger;
+	private final CoordinateQuantizer _reverseCoordinateQuantizer;
+	private final LruCache<String, Location> _reverseLocationCache =
+		new LruCache<>(_REVERSE_LOCATION_CACHE_MAX_SIZE);
 	private final WebClient _webClient;
+	private final WebClientMonitor _webClientMonitor;
 
 }
\ No newline at end of file
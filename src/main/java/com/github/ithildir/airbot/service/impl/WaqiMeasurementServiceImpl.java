@@ -24,14 +24,24 @@ package com.github.ithildir.airbot.service.impl;
 
 import com.github.ithildir.airbot.model.Measurement;
 import com.github.ithildir.airbot.service.MeasurementService;
+import com.github.ithildir.airbot.util.CircuitBreaker;
+import com.github.ithildir.airbot.util.GeoCellCache;
+import com.github.ithildir.airbot.util.JsonFieldExtractor;
+import com.github.ithildir.airbot.util.MetricsProvider;
+import com.github.ithildir.airbot.util.QuotaManager;
+import com.github.ithildir.airbot.util.RequestHedger;
+import com.github.ithildir.airbot.util.SingleFlight;
+import com.github.ithildir.airbot.util.WebClientMonitor;
 
 import io.netty.handler.codec.http.HttpResponseStatus;
 
 import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
@@ -41,29 +51,73 @@ import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.serviceproxy.ServiceException;
 
+import java.io.IOException;
+
 import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAccessor;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
 
 /**
  * @author Andrea Di Giorgi
  */
-public class WaqiMeasurementServiceImpl implements MeasurementService {
+public class WaqiMeasurementServiceImpl
+	implements MeasurementService, MetricsProvider {
 
-	public WaqiMeasurementServiceImpl(Vertx vertx, String key) {
-		_key = Objects.requireNonNull(key);
+	public WaqiMeasurementServiceImpl(
+		Vertx vertx, String key, WebClientOptions webClientOptions,
+		QuotaManager quotaManager, CircuitBreaker circuitBreaker,
+		List<String> prefetchRegions, long prefetchInterval,
+		long maxStaleness) {
 
-		WebClientOptions webClientOptions = new WebClientOptions();
+		_vertx = vertx;
+		_key = Objects.requireNonNull(key);
+		_quotaManager = quotaManager;
+		_circuitBreaker = circuitBreaker;
+		_requestHedger = new RequestHedger(
+			vertx, "WAQI", _HEDGE_PERCENTILE, _HEDGE_MAX_RATE,
+			quotaManager::tryAcquire);
+		_prefetchRegions = prefetchRegions;
+		_prefetchInterval = prefetchInterval;
+
+		_measurementCache = new GeoCellCache<>(
+			_MEASUREMENT_CACHE_BITS, _MEASUREMENT_CACHE_MAX_SIZE,
+			maxStaleness);
 
 		webClientOptions.setDefaultHost("api.waqi.info");
 		webClientOptions.setDefaultPort(443);
 		webClientOptions.setSsl(true);
 
 		_webClient = WebClient.create(vertx, webClientOptions);
+		_webClientMonitor = new WebClientMonitor("WAQI", webClientOptions);
+	}
+
+	@Override
+	public void getForecast(
+		double latitude, double longitude, long time,
+		Handler<AsyncResult<Measurement>> handler) {
+
+		handler.handle(Future.succeededFuture());
+	}
+
+	@Override
+	public void getHistoricalMeasurement(
+		double latitude, double longitude, long time,
+		Handler<AsyncResult<Measurement>> handler) {
+
+		handler.handle(Future.succeededFuture());
 	}
 
 	@Override
@@ -71,32 +125,191 @@ public class WaqiMeasurementServiceImpl implements MeasurementService {
 		double latitude, double longitude,
 		Handler<AsyncResult<Measurement>> handler) {
 
-		HttpRequest<Buffer> httpRequest = _webClient.get(
-			"/feed/geo:" + latitude + ";" + longitude + "/");
+		long now = System.currentTimeMillis();
 
-		httpRequest.setQueryParam("token", _key);
+		GeoCellCache.Entry<Measurement> entry = _measurementCache.getEntry(
+			latitude, longitude, now);
 
-		httpRequest.send(
-			asyncResult -> {
-				HttpResponse<Buffer> httpResponse = _handleHttpResponse(
-					asyncResult, handler);
+		if (entry != null) {
+			Measurement measurement = entry.getValue();
 
-				if (httpResponse == null) {
-					return;
-				}
+			if (entry.isStale(now)) {
+				measurement = new Measurement(measurement.toJson());
 
-				Measurement measurement = _getMeasurement(
-					httpResponse.bodyAsJsonObject());
+				measurement.setStaleness(now - entry.getExpirationTime());
 
-				handler.handle(Future.succeededFuture(measurement));
-			});
+				_revalidateMeasurement(latitude, longitude);
+			}
+
+			handler.handle(Future.succeededFuture(measurement));
+
+			return;
+		}
+
+		if (_logger.isDebugEnabled()) {
+			_logger.debug(
+				"Measurement cache miss for {0},{1} with {2} hits, {3} " +
+					"stale hits, {4} misses and {5} evictions",
+				latitude, longitude, _measurementCache.getHitCount(),
+				_measurementCache.getStaleHitCount(),
+				_measurementCache.getMissCount(),
+				_measurementCache.getEvictionCount());
+		}
+
+		WaqiStationGrid waqiStationGrid = _waqiStationGrid;
+
+		Measurement stationMeasurement = waqiStationGrid.getMeasurement(
+			latitude, longitude, _STATION_MAX_DISTANCE,
+			now - _STATION_MAX_AGE);
+
+		if (stationMeasurement != null) {
+			long staleness =
+				now - stationMeasurement.getTime() - _MEASUREMENT_CACHE_PERIOD;
+
+			stationMeasurement.setStaleness(Math.max(staleness, 0));
+
+			handler.handle(Future.succeededFuture(stationMeasurement));
+
+			return;
+		}
+
+		_measurementSingleFlight.execute(
+			_getCell(latitude, longitude),
+			measurementHandler -> _getMeasurement(
+				latitude, longitude, measurementHandler),
+			handler);
+	}
+
+	@Override
+	public JsonObject getMetrics() {
+		JsonObject jsonObject = new JsonObject();
+
+		jsonObject.put("circuitBreaker", _circuitBreaker.getMetrics());
+		jsonObject.put("measurementCache", _measurementCache.getMetrics());
+		jsonObject.put(
+			"measurementSingleFlight", _measurementSingleFlight.getMetrics());
+		jsonObject.put("quota", _quotaManager.getMetrics());
+		jsonObject.put("requestHedger", _requestHedger.getMetrics());
+		jsonObject.put("stationCount", _waqiStationGrid.size());
+		jsonObject.put("webClient", _webClientMonitor.getMetrics());
+
+		return jsonObject;
 	}
 
 	@Override
 	public void init(Handler<AsyncResult<Void>> handler) {
+		if (!_prefetchRegions.isEmpty()) {
+			_prefetchStations();
+
+			_vertx.setPeriodic(
+				_prefetchInterval, timerId -> _prefetchStations());
+		}
+
 		handler.handle(Future.succeededFuture());
 	}
 
+	private void _cacheMeasurement(
+		double latitude, double longitude, Measurement measurement) {
+
+		long now = System.currentTimeMillis();
+
+		long expirationTime = Math.max(
+			measurement.getTime() + _MEASUREMENT_CACHE_PERIOD,
+			now + _MEASUREMENT_CACHE_MIN_TIME_TO_LIVE);
+
+		_measurementCache.put(
+			latitude, longitude, measurement, expirationTime, now);
+	}
+
+	private WaqiStationGrid _createWaqiStationGrid(
+		List<JsonArray> dataJsonArrays) {
+
+		List<String> cities = new ArrayList<>();
+		List<Double> latitudes = new ArrayList<>();
+		List<Double> longitudes = new ArrayList<>();
+		List<Integer> aqis = new ArrayList<>();
+		List<Long> times = new ArrayList<>();
+
+		Set<Integer> uids = new HashSet<>();
+
+		for (JsonArray dataJsonArray : dataJsonArrays) {
+			for (int i = 0; i < dataJsonArray.size(); i++) {
+				JsonObject dataJsonObject = dataJsonArray.getJsonObject(i);
+
+				Integer uid = dataJsonObject.getInteger("uid");
+				String aqi = dataJsonObject.getString("aqi");
+
+				if ((uid == null) || !StringUtils.isNumeric(aqi) ||
+					!uids.add(uid)) {
+
+					continue;
+				}
+
+				Double latitude = dataJsonObject.getDouble("lat");
+				Double longitude = dataJsonObject.getDouble("lon");
+
+				if ((latitude == null) || (longitude == null)) {
+					continue;
+				}
+
+				JsonObject stationJsonObject = dataJsonObject.getJsonObject(
+					"station");
+
+				long time;
+
+				try {
+					OffsetDateTime offsetDateTime = OffsetDateTime.parse(
+						stationJsonObject.getString("time"));
+
+					time = offsetDateTime.toInstant().toEpochMilli();
+				}
+				catch (Exception e) {
+					continue;
+				}
+
+				cities.add(stationJsonObject.getString("name"));
+				latitudes.add(latitude);
+				longitudes.add(longitude);
+				aqis.add(Integer.parseInt(aqi));
+				times.add(time);
+			}
+		}
+
+		return new WaqiStationGrid(
+			cities.toArray(new String[cities.size()]),
+			ArrayUtils.toPrimitive(latitudes.toArray(new Double[0])),
+			ArrayUtils.toPrimitive(longitudes.toArray(new Double[0])),
+			ArrayUtils.toPrimitive(aqis.toArray(new Integer[0])),
+			ArrayUtils.toPrimitive(times.toArray(new Long[0])));
+	}
+
+	private long _getCell(double latitude, double longitude) {
+		return GeoCellCache.getCell(
+			latitude, longitude, _MEASUREMENT_CACHE_BITS);
+	}
+
+	private void _getMeasurement(
+		double latitude, double longitude,
+		Handler<AsyncResult<Measurement>> handler) {
+
+		_quotaManager.acquire(
+			QuotaManager.PRIORITY_INTERACTIVE,
+			asyncResult -> {
+				if (asyncResult.failed()) {
+					handler.handle(Future.failedFuture(asyncResult.cause()));
+
+					return;
+				}
+
+				_circuitBreaker.execute(
+					circuitBreakerHandler -> _requestHedger.execute(
+						measurementHandler -> _sendMeasurementRequest(
+							latitude, longitude, measurementHandler),
+						circuitBreakerHandler),
+					handler);
+			});
+	}
+
 	private Measurement _getMeasurement(JsonObject jsonObject) {
 		String status = jsonObject.getString("status");
 
@@ -146,6 +359,25 @@ public class WaqiMeasurementServiceImpl implements MeasurementService {
 			city, instant.toEpochMilli(), aqi, mainPollutant, values, null);
 	}
 
+	private void _getStations(
+		String region, Handler<AsyncResult<JsonArray>> handler) {
+
+		_quotaManager.acquire(
+			QuotaManager.PRIORITY_BACKGROUND,
+			asyncResult -> {
+				if (asyncResult.failed()) {
+					handler.handle(Future.failedFuture(asyncResult.cause()));
+
+					return;
+				}
+
+				_circuitBreaker.execute(
+					stationsHandler -> _sendStationsRequest(
+						region, stationsHandler),
+					handler);
+			});
+	}
+
 	private <R, T> HttpResponse<T> _handleHttpResponse(
 		AsyncResult<HttpResponse<T>> asyncResult,
 		Handler<AsyncResult<R>> handler) {
@@ -161,11 +393,8 @@ public class WaqiMeasurementServiceImpl implements MeasurementService {
 		int statusCode = httpResponse.statusCode();
 
 		if (statusCode != HttpResponseStatus.OK.code()) {
-			JsonObject jsonObject = httpResponse.bodyAsJsonObject();
-
 			handler.handle(
-				ServiceException.fail(
-					statusCode, jsonObject.getString("message"), jsonObject));
+				ServiceException.fail(statusCode, httpResponse.bodyAsString()));
 
 			return null;
 		}
@@ -173,10 +402,205 @@ public class WaqiMeasurementServiceImpl implements MeasurementService {
 		return httpResponse;
 	}
 
+	private void _prefetchStations() {
+		@SuppressWarnings("rawtypes")
+		List<Future> futures = new ArrayList<>();
+
+		for (String region : _prefetchRegions) {
+			Future<JsonArray> future = Future.future();
+
+			_getStations(region, future);
+
+			futures.add(future);
+		}
+
+		CompositeFuture compositeFuture = CompositeFuture.join(futures);
+
+		compositeFuture.setHandler(
+			asyncResult -> {
+				List<JsonArray> dataJsonArrays = new ArrayList<>();
+
+				for (int i = 0; i < futures.size(); i++) {
+					if (compositeFuture.succeeded(i)) {
+						dataJsonArrays.add(compositeFuture.resultAt(i));
+					}
+					else {
+						_logger.error(
+							"Unable to prefetch stations in {0}",
+							compositeFuture.cause(i), _prefetchRegions.get(i));
+					}
+				}
+
+				if (dataJsonArrays.isEmpty()) {
+					return;
+				}
+
+				WaqiStationGrid waqiStationGrid = _createWaqiStationGrid(
+					dataJsonArrays);
+
+				_waqiStationGrid = waqiStationGrid;
+
+				if (_logger.isDebugEnabled()) {
+					_logger.debug(
+						"Prefetched {0} stations", waqiStationGrid.size());
+				}
+			});
+	}
+
+	private void _revalidateMeasurement(double latitude, double longitude) {
+		_measurementSingleFlight.execute(
+			_getCell(latitude, longitude),
+			measurementHandler -> _getMeasurement(
+				latitude, longitude, measurementHandler),
+			asyncResult -> {
+				if (asyncResult.failed()) {
+					_logger.warn(
+						"Unable to revalidate measurement for {0},{1}",
+						asyncResult.cause(), latitude, longitude);
+				}
+			});
+	}
+
+	private void _sendMeasurementRequest(
+		double latitude, double longitude,
+		Handler<AsyncResult<Measurement>> handler) {
+
+		HttpRequest<Buffer> httpRequest = _webClient.get(
+			"/feed/geo:" + latitude + ";" + longitude + "/");
+
+		httpRequest.setQueryParam("token", _key);
+
+		_webClientMonitor.send(
+			httpRequest,
+			asyncResult -> {
+				HttpResponse<Buffer> httpResponse = _handleHttpResponse(
+					asyncResult, handler);
+
+				if (httpResponse == null) {
+					return;
+				}
+
+				Measurement measurement;
+
+				try {
+					measurement = _getMeasurement(
+						_jsonFieldExtractor.extract(httpResponse.body()));
+				}
+				catch (IOException ioe) {
+					handler.handle(Future.failedFuture(ioe));
+
+					return;
+				}
+				catch (RuntimeException re) {
+					handler.handle(Future.failedFuture(re));
+
+					return;
+				}
+
+				if (measurement != null) {
+					_cacheMeasurement(latitude, longitude, measurement);
+				}
+
+				handler.handle(Future.succeededFuture(measurement));
+			});
+	}
+
+	private void _sendStationsRequest(
+		String region, Handler<AsyncResult<JsonArray>> handler) {
+
+		HttpRequest<Buffer> httpRequest = _webClient.get("/map/bounds/");
+
+		httpRequest.setQueryParam("latlng", region);
+		httpRequest.setQueryParam("token", _key);
+
+		_webClientMonitor.send(
+			httpRequest,
+			asyncResult -> {
+				HttpResponse<Buffer> httpResponse = _handleHttpResponse(
+					asyncResult, handler);
+
+				if (httpResponse == null) {
+					return;
+				}
+
+				JsonObject jsonObject;
+
+				try {
+					jsonObject = _stationsJsonFieldExtractor.extract(
+						httpResponse.body());
+				}
+				catch (IOException ioe) {
+					handler.handle(Future.failedFuture(ioe));
+
+					return;
+				}
+
+				String status = jsonObject.getString("status");
+
+				if (!"ok".equals(status)) {
+					handler.handle(
+						Future.failedFuture(
+							"Unable to use response " + jsonObject));
+
+					return;
+				}
+
+				handler.handle(
+					Future.succeededFuture(jsonObject.getJsonArray("data")));
+			});
+	}
+
+	private static final double _HEDGE_MAX_RATE = 0.05;
+
+	private static final double _HEDGE_PERCENTILE = 0.95;
+
+	private static final int _MEASUREMENT_CACHE_BITS = 25;
+
+	private static final int _MEASUREMENT_CACHE_MAX_SIZE = 10000;
+
+	private static final long _MEASUREMENT_CACHE_MIN_TIME_TO_LIVE =
+		TimeUnit.MINUTES.toMillis(5);
+
+	/**
+	 * WAQI publishes new measurements every hour, usually a few minutes past
+	 * the measurement time.
+	 */
+	private static final long _MEASUREMENT_CACHE_PERIOD =
+		TimeUnit.MINUTES.toMillis(70);
+
+	private static final long _STATION_MAX_AGE = TimeUnit.HOURS.toMillis(2);
+
+	/**
+	 * Maximum distance, in kilometers, of a prefetched station to be used
+	 * instead of asking WAQI for the nearest one.
+	 */
+	private static final double _STATION_MAX_DISTANCE = 20;
+
+	private static final JsonFieldExtractor _jsonFieldExtractor =
+		new JsonFieldExtractor(
+			"data.aqi", "data.city.name", "data.dominentpol", "data.iaqi.*.v",
+			"data.time.s", "data.time.tz", "status");
+
 	private static final Logger _logger = LoggerFactory.getLogger(
 		WaqiMeasurementServiceImpl.class);
 
+	private static final JsonFieldExtractor _stationsJsonFieldExtractor =
+		new JsonFieldExtractor(
+			"data.*.aqi", "data.*.lat", "data.*.lon", "data.*.station.name",
+			"data.*.station.time", "data.*.uid", "status");
+
+	private final CircuitBreaker _circuitBreaker;
 	private final String _key;
+	private final GeoCellCache<Measurement> _measurementCache;
+	private final SingleFlight<Long, Measurement> _measurementSingleFlight =
+		new SingleFlight<>();
+	private final long _prefetchInterval;
+	private final List<String> _prefetchRegions;
+	private final QuotaManager _quotaManager;
+	private final RequestHedger _requestHedger;
+	private final Vertx _vertx;
+	private volatile WaqiStationGrid _waqiStationGrid = WaqiStationGrid.EMPTY;
 	private final WebClient _webClient;
+	private final WebClientMonitor _webClientMonitor;
 
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.service.impl;
+
+import com.github.ithildir.airbot.model.Measurement;
+import com.github.ithildir.airbot.util.GeoIndex;
+
+import java.util.Collections;
+
+/**
+ * Immutable set of WAQI stations prefetched from the map bounds API, indexed
+ * by their coordinates.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class WaqiStationGrid {
+
+	public static final WaqiStationGrid EMPTY = new WaqiStationGrid(
+		new String[0], new double[0], new double[0], new int[0], new long[0]);
+
+	public WaqiStationGrid(
+		String[] cities, double[] latitudes, double[] longitudes, int[] aqis,
+		long[] times) {
+
+		_cities = cities;
+		_latitudes = latitudes;
+		_longitudes = longitudes;
+		_aqis = aqis;
+		_times = times;
+
+		_geoIndex = new GeoIndex(latitudes, longitudes);
+	}
+
+	/**
+	 * Returns the measurement of the nearest station to the given coordinates
+	 * that is not older than the given time, or <code>null</code> if there is
+	 * none within the given distance.
+	 */
+	public Measurement getMeasurement(
+		double latitude, double longitude, double maxDistance, long minTime) {
+
+		int i = _geoIndex.getNearest(
+			latitude, longitude, id -> _times[id] >= minTime);
+
+		if (i < 0) {
+			return null;
+		}
+
+		double distance = GeoIndex.getDistance(
+			latitude, longitude, _latitudes[i], _longitudes[i]);
+
+		if (distance > maxDistance) {
+			return null;
+		}
+
+		return new Measurement(
+			_cities[i], _times[i], _aqis[i], null, Collections.emptyMap(),
+			null);
+	}
+
+	public int size() {
+		return _cities.length;
+	}
+
+	private final int[] _aqis;
+	private final String[] _cities;
+	private final GeoIndex _geoIndex;
+	private final double[] _latitudes;
+	private final double[] _longitudes;
+	private final long[] _times;
+
+}
\ No newline at end of file
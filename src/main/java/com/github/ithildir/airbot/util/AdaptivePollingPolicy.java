@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+/**
+ * Computes how long to wait before polling a resource that is republished
+ * periodically. Polls are frequent inside a window around the time the next
+ * publication is expected, and back off exponentially outside of it. The
+ * expected publication time starts at the beginning of each period and then
+ * follows the phase of the last observed change.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class AdaptivePollingPolicy {
+
+	public AdaptivePollingPolicy(
+		long period, long minInterval, long maxInterval, long windowBefore,
+		long windowAfter) {
+
+		_period = period;
+		_minInterval = minInterval;
+		_maxInterval = Math.max(minInterval, maxInterval);
+		_windowBefore = windowBefore;
+		_windowAfter = windowAfter;
+	}
+
+	public long getDelay(long now) {
+		long expectedTime = getExpectedTime(now);
+
+		long windowStartTime = expectedTime - _windowBefore;
+
+		if (now >= windowStartTime) {
+			return _minInterval;
+		}
+
+		long delay = _maxInterval;
+
+		if (_unchangedCount < 31) {
+			delay = Math.min(delay, _minInterval << _unchangedCount);
+		}
+
+		delay = Math.min(delay, windowStartTime - now);
+
+		return Math.max(delay, _minInterval);
+	}
+
+	/**
+	 * Returns the first time at which a publication is expected, ignoring the
+	 * times already covered by the last observed change or by the end of the
+	 * current window.
+	 */
+	public long getExpectedTime(long now) {
+		long phase = 0;
+
+		if (_lastChangeTime > 0) {
+			phase = _lastChangeTime % _period;
+		}
+
+		long startTime = Math.max(now - _windowAfter, _lastChangeTime + 1);
+
+		return startTime + Math.floorMod(phase - startTime, _period);
+	}
+
+	public long getLastChangeTime() {
+		return _lastChangeTime;
+	}
+
+	public int getUnchangedCount() {
+		return _unchangedCount;
+	}
+
+	public void onChange(long time) {
+		_lastChangeTime = time;
+		_unchangedCount = 0;
+	}
+
+	public void onNoChange() {
+		if (_unchangedCount < Integer.MAX_VALUE) {
+			_unchangedCount++;
+		}
+	}
+
+	private long _lastChangeTime;
+	private final long _maxInterval;
+	private final long _minInterval;
+	private final long _period;
+	private int _unchangedCount;
+	private final long _windowAfter;
+	private final long _windowBefore;
+
+}
\ No newline at end of file
@@ -0,0 +1,251 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Parses values straight from the bytes of a {@link Buffer}, without creating
+ * intermediate strings.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class BufferUtil {
+
+	public static boolean equals(
+		Buffer buffer, int start, int end, byte[] bytes) {
+
+		if ((end - start) != bytes.length) {
+			return false;
+		}
+
+		for (int i = 0; i < bytes.length; i++) {
+			if (buffer.getByte(start + i) != bytes[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	public static boolean equalsIgnoreCase(
+		Buffer buffer, int start, int end, String s) {
+
+		if ((end - start) != s.length()) {
+			return false;
+		}
+
+		for (int i = 0; i < s.length(); i++) {
+			int b = buffer.getByte(start + i);
+
+			if (Character.toLowerCase(b) !=
+					Character.toLowerCase((int)s.charAt(i))) {
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	public static int hash(Buffer buffer, int start, int end) {
+		int hash = 0x811c9dc5;
+
+		for (int i = start; i < end; i++) {
+			hash ^= buffer.getByte(i);
+			hash *= 0x01000193;
+		}
+
+		return hash ^ (hash >>> 16);
+	}
+
+	public static boolean isBlank(Buffer buffer, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (!_isWhitespace(buffer.getByte(i))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	public static double parseDouble(Buffer buffer, int start, int end) {
+		start = _trimStart(buffer, start, end);
+		end = _trimEnd(buffer, start, end);
+
+		int i = start;
+
+		boolean negative = false;
+
+		if (i < end) {
+			byte b = buffer.getByte(i);
+
+			if ((b == '-') || (b == '+')) {
+				negative = b == '-';
+
+				i++;
+			}
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int fractionDigits = -1;
+
+		for (; i < end; i++) {
+			byte b = buffer.getByte(i);
+
+			if ((b == '.') && (fractionDigits < 0)) {
+				fractionDigits = 0;
+
+				continue;
+			}
+
+			if ((b < '0') || (b > '9') || (digits >= _MAX_DIGITS)) {
+				return _parseDouble(buffer, start, end);
+			}
+
+			mantissa = mantissa * 10 + (b - '0');
+
+			digits++;
+
+			if (fractionDigits >= 0) {
+				fractionDigits++;
+			}
+		}
+
+		if ((digits == 0) || (fractionDigits >= _POWERS_OF_TEN.length) ||
+			(mantissa > _MAX_EXACT_MANTISSA)) {
+
+			return _parseDouble(buffer, start, end);
+		}
+
+		double value = mantissa;
+
+		if (fractionDigits > 0) {
+			value /= _POWERS_OF_TEN[fractionDigits];
+		}
+
+		if (negative) {
+			value = -value;
+		}
+
+		return value;
+	}
+
+	public static int parseInt(Buffer buffer, int start, int end) {
+		start = _trimStart(buffer, start, end);
+		end = _trimEnd(buffer, start, end);
+
+		int i = start;
+
+		boolean negative = false;
+
+		if (i < end) {
+			byte b = buffer.getByte(i);
+
+			if ((b == '-') || (b == '+')) {
+				negative = b == '-';
+
+				i++;
+			}
+		}
+
+		if (i == end) {
+			throw _newNumberFormatException(buffer, start, end);
+		}
+
+		long value = 0;
+
+		for (; i < end; i++) {
+			byte b = buffer.getByte(i);
+
+			if ((b < '0') || (b > '9')) {
+				throw _newNumberFormatException(buffer, start, end);
+			}
+
+			value = value * 10 + (b - '0');
+
+			if (value > _MAX_INT_ABSOLUTE_VALUE) {
+				throw _newNumberFormatException(buffer, start, end);
+			}
+		}
+
+		if (negative) {
+			value = -value;
+		}
+
+		if (value > Integer.MAX_VALUE) {
+			throw _newNumberFormatException(buffer, start, end);
+		}
+
+		return (int)value;
+	}
+
+	private static boolean _isWhitespace(byte b) {
+		if ((b == ' ') || (b == '\t') || (b == '\r') || (b == '\n')) {
+			return true;
+		}
+
+		return false;
+	}
+
+	private static NumberFormatException _newNumberFormatException(
+		Buffer buffer, int start, int end) {
+
+		return new NumberFormatException(
+			"For input string: \"" + buffer.getString(start, end) + "\"");
+	}
+
+	private static double _parseDouble(Buffer buffer, int start, int end) {
+		return Double.parseDouble(buffer.getString(start, end));
+	}
+
+	private static int _trimEnd(Buffer buffer, int start, int end) {
+		while ((end > start) && _isWhitespace(buffer.getByte(end - 1))) {
+			end--;
+		}
+
+		return end;
+	}
+
+	private static int _trimStart(Buffer buffer, int start, int end) {
+		while ((start < end) && _isWhitespace(buffer.getByte(start))) {
+			start++;
+		}
+
+		return start;
+	}
+
+	private static final int _MAX_DIGITS = 18;
+
+	private static final long _MAX_EXACT_MANTISSA = 1L << 53;
+
+	private static final long _MAX_INT_ABSOLUTE_VALUE =
+		-(long)Integer.MIN_VALUE;
+
+	private static final double[] _POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+		1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+}
\ No newline at end of file
@@ -0,0 +1,242 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.serviceproxy.ServiceException;
+
+/**
+ * Circuit breaker that opens after a number of consecutive failures, failing
+ * every call right away until the reset timeout has elapsed. Then a single
+ * probe call is let through: the breaker closes if it succeeds, and opens
+ * again otherwise. Only timeouts, transport errors and server errors count
+ * as failures, while other failures, like local quota rejections or client
+ * errors, leave the breaker as it is. It is not thread-safe, and must be used
+ * by a single context.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class CircuitBreaker implements MetricsProvider {
+
+	/**
+	 * Failure code of the {@link ServiceException} returned when the breaker
+	 * is open. It is negative, so it never clashes with the HTTP status codes
+	 * returned by the providers.
+	 */
+	public static final int CIRCUIT_OPEN_FAILURE_CODE = -503;
+
+	/**
+	 * Failure code of the {@link ServiceException} returned when a call does
+	 * not complete within the timeout.
+	 */
+	public static final int CIRCUIT_TIMEOUT_FAILURE_CODE = -504;
+
+	public CircuitBreaker(
+		Vertx vertx, String name, int maxFailures, long timeout,
+		long resetTimeout) {
+
+		_vertx = vertx;
+		_name = name;
+		_maxFailures = maxFailures;
+		_timeout = timeout;
+		_resetTimeout = resetTimeout;
+	}
+
+	public <T> void execute(
+		Handler<Handler<AsyncResult<T>>> operation,
+		Handler<AsyncResult<T>> handler) {
+
+		if (!_isCallPermitted()) {
+			_rejectedCount++;
+
+			handler.handle(
+				ServiceException.fail(
+					CIRCUIT_OPEN_FAILURE_CODE, _name + " circuit is open"));
+
+			return;
+		}
+
+		boolean[] completed = {false};
+
+		long timerId = _vertx.setTimer(
+			_timeout,
+			id -> {
+				if (completed[0]) {
+					return;
+				}
+
+				completed[0] = true;
+
+				_timeoutCount++;
+
+				_onFailure();
+
+				handler.handle(
+					ServiceException.fail(
+						CIRCUIT_TIMEOUT_FAILURE_CODE,
+						_name + " call timed out after " + _timeout + " ms"));
+			});
+
+		operation.handle(
+			asyncResult -> {
+				if (completed[0]) {
+					return;
+				}
+
+				completed[0] = true;
+
+				_vertx.cancelTimer(timerId);
+
+				if (asyncResult.succeeded()) {
+					_onSuccess();
+				}
+				else if (_isFailure(asyncResult.cause())) {
+					_onFailure();
+				}
+				else {
+					_probing = false;
+				}
+
+				handler.handle(asyncResult);
+			});
+	}
+
+	@Override
+	public JsonObject getMetrics() {
+		JsonObject jsonObject = new JsonObject();
+
+		jsonObject.put("failureCount", _failureCount);
+		jsonObject.put("open", isOpen());
+		jsonObject.put("openCount", _openCount);
+		jsonObject.put("rejectedCount", _rejectedCount);
+		jsonObject.put("timeoutCount", _timeoutCount);
+
+		return jsonObject;
+	}
+
+	public long getRejectedCount() {
+		return _rejectedCount;
+	}
+
+	public boolean isOpen() {
+		if (_openTime < 0) {
+			return false;
+		}
+
+		if (!_probing &&
+			((System.currentTimeMillis() - _openTime) >= _resetTimeout)) {
+
+			return false;
+		}
+
+		return true;
+	}
+
+	private boolean _isCallPermitted() {
+		if (_openTime < 0) {
+			return true;
+		}
+
+		if (_probing ||
+			((System.currentTimeMillis() - _openTime) < _resetTimeout)) {
+
+			return false;
+		}
+
+		_probing = true;
+
+		if (_logger.isDebugEnabled()) {
+			_logger.debug("Probing {0} circuit", _name);
+		}
+
+		return true;
+	}
+
+	private boolean _isFailure(Throwable throwable) {
+		if (!(throwable instanceof ServiceException)) {
+			return true;
+		}
+
+		ServiceException serviceException = (ServiceException)throwable;
+
+		int failureCode = serviceException.failureCode();
+
+		if ((failureCode == CIRCUIT_TIMEOUT_FAILURE_CODE) ||
+			(failureCode >= 500)) {
+
+			return true;
+		}
+
+		return false;
+	}
+
+	private void _onFailure() {
+		_failureCount++;
+		_failures++;
+
+		if (_probing || (_failures >= _maxFailures)) {
+			if (_openTime < 0) {
+				_openCount++;
+
+				_logger.warn(
+					"Opening {0} circuit after {1} failures", _name,
+					_failures);
+			}
+
+			_openTime = System.currentTimeMillis();
+			_probing = false;
+		}
+	}
+
+	private void _onSuccess() {
+		if (_openTime >= 0) {
+			_logger.info("Closing {0} circuit", _name);
+		}
+
+		_failures = 0;
+		_openTime = -1;
+		_probing = false;
+	}
+
+	private static final Logger _logger = LoggerFactory.getLogger(
+		CircuitBreaker.class);
+
+	private long _failureCount;
+	private int _failures;
+	private final int _maxFailures;
+	private final String _name;
+	private long _openCount;
+	private long _openTime = -1;
+	private boolean _probing;
+	private long _rejectedCount;
+	private final long _resetTimeout;
+	private final long _timeout;
+	private long _timeoutCount;
+	private final Vertx _vertx;
+
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Snaps coordinates to the centers of a square grid whose cells measure the
+ * given precision, in degrees, on each side. The centers are computed in
+ * decimal arithmetic, so they are printed without binary rounding noise,
+ * like 45.669999999999995.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class CoordinateQuantizer {
+
+	public CoordinateQuantizer(double precision) {
+		if (precision <= 0) {
+			throw new IllegalArgumentException(
+				"Precision must be greater than 0");
+		}
+
+		_precision = precision;
+
+		_precisionBigDecimal = BigDecimal.valueOf(precision);
+	}
+
+	/**
+	 * Returns the key of the cell containing the given coordinates, made of
+	 * the latitude and longitude indexes of the cell.
+	 */
+	public String getCell(double latitude, double longitude) {
+		return _getIndex(latitude) + "," + _getIndex(longitude);
+	}
+
+	/**
+	 * Returns the center of the cell containing the given coordinates, in the
+	 * "lat,lng" format.
+	 */
+	public String getCellCenter(double latitude, double longitude) {
+		return _getCenter(latitude) + "," + _getCenter(longitude);
+	}
+
+	private String _getCenter(double coordinate) {
+		BigDecimal bigDecimal = _precisionBigDecimal.multiply(
+			BigDecimal.valueOf(_getIndex(coordinate)));
+
+		bigDecimal = bigDecimal.stripTrailingZeros();
+
+		return bigDecimal.toPlainString();
+	}
+
+	private long _getIndex(double coordinate) {
+		return Math.round(coordinate / _precision);
+	}
+
+	private final double _precision;
+	private final BigDecimal _precisionBigDecimal;
+
+}
\ No newline at end of file
@@ -0,0 +1,390 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resolves the country of a point from a set of simplified boundary polygons,
+ * without calling any remote service. The bounding box of the polygons is
+ * split into a grid of cells, each one precomputed as either fully inside a
+ * polygon, fully outside all of them, or crossed by a boundary. Only points
+ * that fall in a boundary cell need an exact point-in-polygon test.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class CountryResolver {
+
+	/**
+	 * Reads polygons from a stream with one polygon per line, made of a
+	 * country code followed by space-separated
+	 * <code>latitude,longitude</code> vertices. Blank lines and lines
+	 * starting with <code>#</code> are ignored.
+	 */
+	public static CountryResolver read(
+			InputStream inputStream, double cellSize)
+		throws IOException {
+
+		List<String> countries = new ArrayList<>();
+		List<double[]> latitudesList = new ArrayList<>();
+		List<double[]> longitudesList = new ArrayList<>();
+
+		BufferedReader bufferedReader = new BufferedReader(
+			new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+
+		String line;
+
+		while ((line = bufferedReader.readLine()) != null) {
+			line = line.trim();
+
+			if (line.isEmpty() || (line.charAt(0) == '#')) {
+				continue;
+			}
+
+			String[] parts = line.split("\\s+");
+
+			if (parts.length < 4) {
+				throw new IOException("Invalid polygon: " + line);
+			}
+
+			double[] latitudes = new double[parts.length - 1];
+			double[] longitudes = new double[parts.length - 1];
+
+			for (int i = 1; i < parts.length; i++) {
+				String[] coordinates = parts[i].split(",");
+
+				if (coordinates.length != 2) {
+					throw new IOException("Invalid vertex: " + parts[i]);
+				}
+
+				try {
+					latitudes[i - 1] = Double.parseDouble(coordinates[0]);
+					longitudes[i - 1] = Double.parseDouble(coordinates[1]);
+				}
+				catch (NumberFormatException nfe) {
+					throw new IOException("Invalid vertex: " + parts[i], nfe);
+				}
+			}
+
+			countries.add(parts[0]);
+			latitudesList.add(latitudes);
+			longitudesList.add(longitudes);
+		}
+
+		return new CountryResolver(
+			countries.toArray(new String[countries.size()]),
+			latitudesList.toArray(new double[latitudesList.size()][]),
+			longitudesList.toArray(new double[longitudesList.size()][]),
+			cellSize);
+	}
+
+	public CountryResolver(
+		String[] countries, double[][] latitudes, double[][] longitudes,
+		double cellSize) {
+
+		if ((countries.length != latitudes.length) ||
+			(countries.length != longitudes.length)) {
+
+			throw new IllegalArgumentException(
+				"Countries, latitudes and longitudes must have the same " +
+					"length");
+		}
+
+		if (cellSize <= 0) {
+			throw new IllegalArgumentException(
+				"Cell size must be greater than 0");
+		}
+
+		_countries = countries;
+		_latitudes = latitudes;
+		_longitudes = longitudes;
+		_cellSize = cellSize;
+
+		double minLatitude = Double.MAX_VALUE;
+		double minLongitude = Double.MAX_VALUE;
+		double maxLatitude = -Double.MAX_VALUE;
+		double maxLongitude = -Double.MAX_VALUE;
+
+		for (int i = 0; i < countries.length; i++) {
+			if (latitudes[i].length != longitudes[i].length) {
+				throw new IllegalArgumentException(
+					"Polygon " + i + " has a different number of latitudes " +
+						"and longitudes");
+			}
+
+			for (int j = 0; j < latitudes[i].length; j++) {
+				minLatitude = Math.min(minLatitude, latitudes[i][j]);
+				minLongitude = Math.min(minLongitude, longitudes[i][j]);
+				maxLatitude = Math.max(maxLatitude, latitudes[i][j]);
+				maxLongitude = Math.max(maxLongitude, longitudes[i][j]);
+			}
+		}
+
+		if (countries.length == 0) {
+			minLatitude = 0;
+			minLongitude = 0;
+			maxLatitude = 0;
+			maxLongitude = 0;
+		}
+
+		_minLatitude = minLatitude;
+		_minLongitude = minLongitude;
+
+		_rows = Math.max(
+			(int)Math.ceil((maxLatitude - minLatitude) / cellSize), 1);
+		_columns = Math.max(
+			(int)Math.ceil((maxLongitude - minLongitude) / cellSize), 1);
+
+		_cellPolygons = new int[_rows * _columns];
+		_cellBoundaryPolygons = new int[_rows * _columns][];
+
+		for (int row = 0; row < _rows; row++) {
+			for (int column = 0; column < _columns; column++) {
+				_initCell(row, column);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of cells crossed by a boundary, which require an
+	 * exact point-in-polygon test.
+	 */
+	public int getBoundaryCellCount() {
+		int count = 0;
+
+		for (int[] boundaryPolygons : _cellBoundaryPolygons) {
+			if (boundaryPolygons != null) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	public int getCellCount() {
+		return _cellPolygons.length;
+	}
+
+	/**
+	 * Returns the code of the country that contains the given coordinates, or
+	 * <code>null</code> if they are outside all the polygons.
+	 */
+	public String getCountry(double latitude, double longitude) {
+		int cell = _getCell(latitude, longitude);
+
+		if (cell < 0) {
+			return null;
+		}
+
+		int[] boundaryPolygons = _cellBoundaryPolygons[cell];
+
+		if (boundaryPolygons == null) {
+			int polygon = _cellPolygons[cell];
+
+			if (polygon < 0) {
+				return null;
+			}
+
+			return _countries[polygon];
+		}
+
+		for (int polygon : boundaryPolygons) {
+			if (_contains(polygon, latitude, longitude)) {
+				return _countries[polygon];
+			}
+		}
+
+		return null;
+	}
+
+	private boolean _contains(int polygon, double latitude, double longitude) {
+		double[] latitudes = _latitudes[polygon];
+		double[] longitudes = _longitudes[polygon];
+
+		boolean inside = false;
+
+		for (int i = 0; i < latitudes.length; i++) {
+			int j = (i + latitudes.length - 1) % latitudes.length;
+
+			if ((latitudes[i] > latitude) == (latitudes[j] > latitude)) {
+				continue;
+			}
+
+			double ratio =
+				(latitude - latitudes[i]) / (latitudes[j] - latitudes[i]);
+
+			double intersectionLongitude =
+				longitudes[i] + ratio * (longitudes[j] - longitudes[i]);
+
+			if (longitude < intersectionLongitude) {
+				inside = !inside;
+			}
+		}
+
+		return inside;
+	}
+
+	private int _getCell(double latitude, double longitude) {
+		int row = (int)Math.floor((latitude - _minLatitude) / _cellSize);
+		int column = (int)Math.floor((longitude - _minLongitude) / _cellSize);
+
+		if ((row < 0) || (row >= _rows) || (column < 0) ||
+			(column >= _columns)) {
+
+			return -1;
+		}
+
+		return row * _columns + column;
+	}
+
+	private void _initCell(int row, int column) {
+		double minLatitude = _minLatitude + row * _cellSize;
+		double minLongitude = _minLongitude + column * _cellSize;
+		double maxLatitude = minLatitude + _cellSize;
+		double maxLongitude = minLongitude + _cellSize;
+
+		int cell = row * _columns + column;
+
+		_cellPolygons[cell] = -1;
+
+		List<Integer> boundaryPolygons = new ArrayList<>();
+
+		for (int polygon = 0; polygon < _countries.length; polygon++) {
+			if (_intersects(
+					polygon, minLatitude, minLongitude, maxLatitude,
+					maxLongitude)) {
+
+				boundaryPolygons.add(polygon);
+			}
+			else if ((_cellPolygons[cell] < 0) &&
+					 _contains(
+						 polygon, (minLatitude + maxLatitude) / 2,
+						 (minLongitude + maxLongitude) / 2)) {
+
+				_cellPolygons[cell] = polygon;
+			}
+		}
+
+		if (boundaryPolygons.isEmpty()) {
+			return;
+		}
+
+		if (_cellPolygons[cell] >= 0) {
+			boundaryPolygons.add(0, _cellPolygons[cell]);
+		}
+
+		int[] boundaryPolygonsArray = new int[boundaryPolygons.size()];
+
+		for (int i = 0; i < boundaryPolygonsArray.length; i++) {
+			boundaryPolygonsArray[i] = boundaryPolygons.get(i);
+		}
+
+		_cellBoundaryPolygons[cell] = boundaryPolygonsArray;
+	}
+
+	/**
+	 * Returns whether any edge of the polygon crosses the given rectangle,
+	 * by clipping every edge against it.
+	 */
+	private boolean _intersects(
+		int polygon, double minLatitude, double minLongitude,
+		double maxLatitude, double maxLongitude) {
+
+		double[] latitudes = _latitudes[polygon];
+		double[] longitudes = _longitudes[polygon];
+
+		for (int i = 0; i < latitudes.length; i++) {
+			int j = (i + latitudes.length - 1) % latitudes.length;
+
+			double x = longitudes[j];
+			double y = latitudes[j];
+
+			double[] p = {
+				x - longitudes[i], longitudes[i] - x, y - latitudes[i],
+				latitudes[i] - y
+			};
+			double[] q = {
+				x - minLongitude, maxLongitude - x, y - minLatitude,
+				maxLatitude - y
+			};
+
+			double t0 = 0;
+			double t1 = 1;
+
+			boolean visible = true;
+
+			for (int k = 0; k < 4; k++) {
+				if (p[k] == 0) {
+					if (q[k] < 0) {
+						visible = false;
+
+						break;
+					}
+
+					continue;
+				}
+
+				double t = q[k] / p[k];
+
+				if (p[k] < 0) {
+					t0 = Math.max(t0, t);
+				}
+				else {
+					t1 = Math.min(t1, t);
+				}
+
+				if (t0 > t1) {
+					visible = false;
+
+					break;
+				}
+			}
+
+			if (visible) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private final int[][] _cellBoundaryPolygons;
+	private final int[] _cellPolygons;
+	private final double _cellSize;
+	private final int _columns;
+	private final String[] _countries;
+	private final double[][] _latitudes;
+	private final double[][] _longitudes;
+	private final double _minLatitude;
+	private final double _minLongitude;
+	private final int _rows;
+
+}
\ No newline at end of file
@@ -0,0 +1,236 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+
+/**
+ * Write stream that incrementally inflates gzip or zlib encoded data into
+ * another write stream. Since body codecs are bound before the response
+ * headers are received, the encoding is detected from the first bytes of the
+ * data, which is passed through unchanged if it is not compressed. Raw
+ * deflate data has no header to detect, so requests must not advertise the
+ * <code>deflate</code> content coding.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class DecompressingWriteStream implements WriteStream<Buffer> {
+
+	public DecompressingWriteStream(WriteStream<Buffer> writeStream) {
+		_writeStream = writeStream;
+	}
+
+	@Override
+	public WriteStream<Buffer> drainHandler(Handler<Void> handler) {
+		_writeStream.drainHandler(handler);
+
+		return this;
+	}
+
+	@Override
+	public void end() {
+		if (_failed) {
+			return;
+		}
+
+		try {
+			if (_header != null) {
+				_decode(_header);
+			}
+
+			if ((_embeddedChannel != null) && _embeddedChannel.finish()) {
+				_writeDecoded();
+			}
+		}
+		catch (Exception e) {
+			_fail(e);
+
+			return;
+		}
+
+		_writeStream.end();
+	}
+
+	@Override
+	public WriteStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+		_exceptionHandler = handler;
+
+		_writeStream.exceptionHandler(handler);
+
+		return this;
+	}
+
+	public long getCompressedBytes() {
+		return _compressedBytes;
+	}
+
+	public long getDecompressedBytes() {
+		return _decompressedBytes;
+	}
+
+	public boolean isCompressed() {
+		return _embeddedChannel != null;
+	}
+
+	@Override
+	public WriteStream<Buffer> setWriteQueueMaxSize(int writeQueueMaxSize) {
+		_writeStream.setWriteQueueMaxSize(writeQueueMaxSize);
+
+		return this;
+	}
+
+	@Override
+	public WriteStream<Buffer> write(Buffer buffer) {
+		if (_failed) {
+			return this;
+		}
+
+		_compressedBytes += buffer.length();
+
+		if (!_detected) {
+			if (_header == null) {
+				_header = buffer.copy();
+			}
+			else {
+				_header.appendBuffer(buffer);
+			}
+
+			if (_header.length() < 2) {
+				return this;
+			}
+
+			buffer = _header;
+
+			_header = null;
+		}
+
+		try {
+			_decode(buffer);
+		}
+		catch (Exception e) {
+			_fail(e);
+		}
+
+		return this;
+	}
+
+	@Override
+	public boolean writeQueueFull() {
+		return _writeStream.writeQueueFull();
+	}
+
+	private void _decode(Buffer buffer) {
+		if (!_detected) {
+			_detected = true;
+
+			ZlibWrapper zlibWrapper = _getZlibWrapper(buffer);
+
+			if (zlibWrapper != null) {
+				_embeddedChannel = new EmbeddedChannel(
+					ZlibCodecFactory.newZlibDecoder(zlibWrapper));
+			}
+		}
+
+		if (_embeddedChannel == null) {
+			_decompressedBytes += buffer.length();
+
+			_writeStream.write(buffer);
+
+			return;
+		}
+
+		if (_embeddedChannel.writeInbound(
+				Unpooled.wrappedBuffer(buffer.getBytes()))) {
+
+			_writeDecoded();
+		}
+	}
+
+	private void _fail(Throwable throwable) {
+		_failed = true;
+
+		if (_embeddedChannel != null) {
+			_embeddedChannel.finishAndReleaseAll();
+		}
+
+		if (_exceptionHandler != null) {
+			_exceptionHandler.handle(throwable);
+		}
+	}
+
+	private ZlibWrapper _getZlibWrapper(Buffer buffer) {
+		if (buffer.length() < 2) {
+			return null;
+		}
+
+		int b0 = buffer.getUnsignedByte(0);
+		int b1 = buffer.getUnsignedByte(1);
+
+		if ((b0 == 0x1f) && (b1 == 0x8b)) {
+			return ZlibWrapper.GZIP;
+		}
+
+		if ((b0 == 0x78) && ((((b0 << 8) | b1) % 31) == 0)) {
+			return ZlibWrapper.ZLIB;
+		}
+
+		return null;
+	}
+
+	private void _writeDecoded() {
+		ByteBuf byteBuf;
+
+		while ((byteBuf = _embeddedChannel.readInbound()) != null) {
+			try {
+				byte[] bytes = new byte[byteBuf.readableBytes()];
+
+				byteBuf.readBytes(bytes);
+
+				_decompressedBytes += bytes.length;
+
+				_writeStream.write(Buffer.buffer(bytes));
+			}
+			finally {
+				byteBuf.release();
+			}
+		}
+	}
+
+	private long _compressedBytes;
+	private long _decompressedBytes;
+	private boolean _detected;
+	private EmbeddedChannel _embeddedChannel;
+	private Handler<Throwable> _exceptionHandler;
+	private boolean _failed;
+	private Buffer _header;
+	private final WriteStream<Buffer> _writeStream;
+
+}
\ No newline at end of file
@@ -0,0 +1,263 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, concurrent cache whose keys are geohash cells, so that nearby
+ * coordinates share the same entry. Every entry carries its own expiration
+ * time, after which it is still kept as stale for the given maximum stale
+ * time, so that it can be served while being refreshed. Once the cache is
+ * full, the entries past their stale time are purged, followed by arbitrary
+ * ones if needed.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class GeoCellCache<V> implements MetricsProvider {
+
+	/**
+	 * Returns the geohash of the given coordinates, truncated to the given
+	 * number of bits and stored in the low bits of a <code>long</code>.
+	 */
+	public static long getCell(double latitude, double longitude, int bits) {
+		double minLatitude = -90;
+		double maxLatitude = 90;
+		double minLongitude = -180;
+		double maxLongitude = 180;
+
+		long cell = 0;
+
+		for (int i = 0; i < bits; i++) {
+			cell <<= 1;
+
+			if ((i % 2) == 0) {
+				double middle = (minLongitude + maxLongitude) / 2;
+
+				if (longitude >= middle) {
+					cell |= 1;
+					minLongitude = middle;
+				}
+				else {
+					maxLongitude = middle;
+				}
+			}
+			else {
+				double middle = (minLatitude + maxLatitude) / 2;
+
+				if (latitude >= middle) {
+					cell |= 1;
+					minLatitude = middle;
+				}
+				else {
+					maxLatitude = middle;
+				}
+			}
+		}
+
+		return cell;
+	}
+
+	public GeoCellCache(int bits, int maxSize) {
+		this(bits, maxSize, 0);
+	}
+
+	public GeoCellCache(int bits, int maxSize, long maxStaleTime) {
+		if ((bits <= 0) || (bits > 62)) {
+			throw new IllegalArgumentException(
+				"Bits must be between 1 and 62");
+		}
+
+		_bits = bits;
+		_maxSize = maxSize;
+		_maxStaleTime = maxStaleTime;
+	}
+
+	/**
+	 * Returns the value of the given coordinates, or <code>null</code> if
+	 * there is none or it is stale.
+	 */
+	public V get(double latitude, double longitude, long now) {
+		Entry<V> entry = getEntry(latitude, longitude, now);
+
+		if ((entry == null) || entry.isStale(now)) {
+			return null;
+		}
+
+		return entry.getValue();
+	}
+
+	/**
+	 * Returns the entry of the given coordinates, either fresh or stale, or
+	 * <code>null</code> if there is none.
+	 */
+	public Entry<V> getEntry(double latitude, double longitude, long now) {
+		long cell = getCell(latitude, longitude, _bits);
+
+		Entry<V> entry = _entries.get(cell);
+
+		if ((entry != null) &&
+			((entry.getExpirationTime() + _maxStaleTime) <= now)) {
+
+			if (_entries.remove(cell, entry)) {
+				_evictionCount.incrementAndGet();
+			}
+
+			entry = null;
+		}
+
+		if (entry == null) {
+			_missCount.incrementAndGet();
+		}
+		else if (entry.isStale(now)) {
+			_staleHitCount.incrementAndGet();
+		}
+		else {
+			_hitCount.incrementAndGet();
+		}
+
+		return entry;
+	}
+
+	public long getEvictionCount() {
+		return _evictionCount.get();
+	}
+
+	public long getHitCount() {
+		return _hitCount.get();
+	}
+
+	@Override
+	public JsonObject getMetrics() {
+		JsonObject jsonObject = new JsonObject();
+
+		jsonObject.put("evictionCount", getEvictionCount());
+		jsonObject.put("hitCount", getHitCount());
+		jsonObject.put("missCount", getMissCount());
+		jsonObject.put("size", size());
+		jsonObject.put("staleHitCount", getStaleHitCount());
+
+		return jsonObject;
+	}
+
+	public long getMissCount() {
+		return _missCount.get();
+	}
+
+	public long getStaleHitCount() {
+		return _staleHitCount.get();
+	}
+
+	public void put(
+		double latitude, double longitude, V value, long expirationTime,
+		long now) {
+
+		if ((expirationTime + _maxStaleTime) <= now) {
+			return;
+		}
+
+		if (_entries.size() >= _maxSize) {
+			_evict(now);
+		}
+
+		_entries.put(
+			getCell(latitude, longitude, _bits),
+			new Entry<>(value, expirationTime));
+	}
+
+	public int size() {
+		return _entries.size();
+	}
+
+	private void _evict(long now) {
+		Iterator<Map.Entry<Long, Entry<V>>> iterator =
+			_entries.entrySet().iterator();
+
+		while (iterator.hasNext()) {
+			Map.Entry<Long, Entry<V>> mapEntry = iterator.next();
+
+			Entry<V> entry = mapEntry.getValue();
+
+			if ((entry.getExpirationTime() + _maxStaleTime) <= now) {
+				iterator.remove();
+
+				_evictionCount.incrementAndGet();
+			}
+		}
+
+		int size = _entries.size();
+
+		iterator = _entries.entrySet().iterator();
+
+		while ((size >= (_maxSize - _maxSize / 8)) && iterator.hasNext()) {
+			iterator.next();
+
+			iterator.remove();
+
+			_evictionCount.incrementAndGet();
+
+			size--;
+		}
+	}
+
+	private final int _bits;
+	private final ConcurrentMap<Long, Entry<V>> _entries =
+		new ConcurrentHashMap<>();
+	private final AtomicLong _evictionCount = new AtomicLong();
+	private final AtomicLong _hitCount = new AtomicLong();
+	private final int _maxSize;
+	private final long _maxStaleTime;
+	private final AtomicLong _missCount = new AtomicLong();
+	private final AtomicLong _staleHitCount = new AtomicLong();
+
+	public static class Entry<V> {
+
+		public Entry(V value, long expirationTime) {
+			_value = value;
+			_expirationTime = expirationTime;
+		}
+
+		public long getExpirationTime() {
+			return _expirationTime;
+		}
+
+		public V getValue() {
+			return _value;
+		}
+
+		public boolean isStale(long now) {
+			return _expirationTime <= now;
+		}
+
+		private final long _expirationTime;
+		private final V _value;
+
+	}
+
+}
\ No newline at end of file
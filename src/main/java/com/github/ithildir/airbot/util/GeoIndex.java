@@ -0,0 +1,278 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Immutable k-d tree over points of the Earth's surface, stored as 3D unit
+ * vectors so that the nearest point by chord distance is also the nearest one
+ * by great-circle distance.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class GeoIndex {
+
+	/**
+	 * Returns the great-circle distance, in kilometers, between two points.
+	 */
+	public static double getDistance(
+		double latitude1, double longitude1, double latitude2,
+		double longitude2) {
+
+		double deltaLatitude = Math.toRadians(latitude2 - latitude1);
+		double deltaLongitude = Math.toRadians(longitude2 - longitude1);
+
+		double sinDeltaLatitude = Math.sin(deltaLatitude / 2);
+		double sinDeltaLongitude = Math.sin(deltaLongitude / 2);
+
+		double a =
+			sinDeltaLatitude * sinDeltaLatitude +
+				Math.cos(Math.toRadians(latitude1)) *
+					Math.cos(Math.toRadians(latitude2)) * sinDeltaLongitude *
+						sinDeltaLongitude;
+
+		return 2 * _EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+	}
+
+	public GeoIndex(double[] latitudes, double[] longitudes) {
+		if (latitudes.length != longitudes.length) {
+			throw new IllegalArgumentException(
+				"Latitudes and longitudes must have the same length");
+		}
+
+		int size = latitudes.length;
+
+		_ids = new int[size];
+		_x = new double[size];
+		_y = new double[size];
+		_z = new double[size];
+
+		for (int i = 0; i < size; i++) {
+			double latitude = Math.toRadians(latitudes[i]);
+			double longitude = Math.toRadians(longitudes[i]);
+
+			double cosLatitude = Math.cos(latitude);
+
+			_ids[i] = i;
+			_x[i] = cosLatitude * Math.cos(longitude);
+			_y[i] = cosLatitude * Math.sin(longitude);
+			_z[i] = Math.sin(latitude);
+		}
+
+		_build(0, size, 0);
+	}
+
+	/**
+	 * Returns the position, in the arrays passed to the constructor, of the
+	 * point nearest to the given coordinates, or <code>-1</code> if the index
+	 * is empty.
+	 */
+	public int getNearest(double latitude, double longitude) {
+		return getNearest(latitude, longitude, id -> true);
+	}
+
+	/**
+	 * Returns the position of the point nearest to the given coordinates
+	 * among the ones accepted by the predicate, which receives positions in
+	 * the arrays passed to the constructor, or <code>-1</code> if there is
+	 * none.
+	 */
+	public int getNearest(
+		double latitude, double longitude, IntPredicate predicate) {
+
+		if (_ids.length == 0) {
+			return -1;
+		}
+
+		latitude = Math.toRadians(latitude);
+		longitude = Math.toRadians(longitude);
+
+		double cosLatitude = Math.cos(latitude);
+
+		double[] point = {
+			cosLatitude * Math.cos(longitude),
+			cosLatitude * Math.sin(longitude), Math.sin(latitude)
+		};
+
+		double[] nearestDistance = {Double.MAX_VALUE};
+
+		int nearest = _getNearest(
+			0, _ids.length, 0, point, predicate, -1, nearestDistance);
+
+		if (nearest < 0) {
+			return -1;
+		}
+
+		return _ids[nearest];
+	}
+
+	public int size() {
+		return _ids.length;
+	}
+
+	private void _build(int from, int to, int axis) {
+		if ((to - from) <= 1) {
+			return;
+		}
+
+		int median = (from + to) >>> 1;
+
+		_select(from, to - 1, median, _getCoordinates(axis));
+
+		int nextAxis = (axis + 1) % 3;
+
+		_build(from, median, nextAxis);
+		_build(median + 1, to, nextAxis);
+	}
+
+	private double[] _getCoordinates(int axis) {
+		if (axis == 0) {
+			return _x;
+		}
+		else if (axis == 1) {
+			return _y;
+		}
+
+		return _z;
+	}
+
+	private int _getNearest(
+		int from, int to, int axis, double[] point, IntPredicate predicate,
+		int nearest, double[] nearestDistance) {
+
+		if (from >= to) {
+			return nearest;
+		}
+
+		int median = (from + to) >>> 1;
+
+		double dx = _x[median] - point[0];
+		double dy = _y[median] - point[1];
+		double dz = _z[median] - point[2];
+
+		double distance = dx * dx + dy * dy + dz * dz;
+
+		if ((distance < nearestDistance[0]) && predicate.test(_ids[median])) {
+			nearest = median;
+			nearestDistance[0] = distance;
+		}
+
+		double[] coordinates = _getCoordinates(axis);
+
+		double delta = point[axis] - coordinates[median];
+
+		int nextAxis = (axis + 1) % 3;
+
+		if (delta < 0) {
+			nearest = _getNearest(
+				from, median, nextAxis, point, predicate, nearest,
+				nearestDistance);
+
+			if ((delta * delta) < nearestDistance[0]) {
+				nearest = _getNearest(
+					median + 1, to, nextAxis, point, predicate, nearest,
+					nearestDistance);
+			}
+		}
+		else {
+			nearest = _getNearest(
+				median + 1, to, nextAxis, point, predicate, nearest,
+				nearestDistance);
+
+			if ((delta * delta) < nearestDistance[0]) {
+				nearest = _getNearest(
+					from, median, nextAxis, point, predicate, nearest,
+					nearestDistance);
+			}
+		}
+
+		return nearest;
+	}
+
+	private void _select(int left, int right, int k, double[] coordinates) {
+		while (left < right) {
+			double pivot = coordinates[(left + right) >>> 1];
+
+			int i = left;
+			int j = right;
+
+			while (i <= j) {
+				while (coordinates[i] < pivot) {
+					i++;
+				}
+
+				while (coordinates[j] > pivot) {
+					j--;
+				}
+
+				if (i <= j) {
+					_swap(i, j);
+
+					i++;
+					j--;
+				}
+			}
+
+			if (k <= j) {
+				right = j;
+			}
+			else if (k >= i) {
+				left = i;
+			}
+			else {
+				return;
+			}
+		}
+	}
+
+	private void _swap(int i, int j) {
+		int id = _ids[i];
+
+		_ids[i] = _ids[j];
+		_ids[j] = id;
+
+		double x = _x[i];
+
+		_x[i] = _x[j];
+		_x[j] = x;
+
+		double y = _y[i];
+
+		_y[i] = _y[j];
+		_y[j] = y;
+
+		double z = _z[i];
+
+		_z[i] = _z[j];
+		_z[j] = z;
+	}
+
+	private static final double _EARTH_RADIUS = 6371.0088;
+
+	private final int[] _ids;
+	private final double[] _x;
+	private final double[] _y;
+	private final double[] _z;
+
+}
\ No newline at end of file
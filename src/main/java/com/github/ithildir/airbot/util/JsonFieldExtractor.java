@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import io.netty.buffer.ByteBufInputStream;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Extracts a subset of the fields of a JSON document in a single streaming
+ * pass, without building the tree of the fields that are not needed.
+ *
+ * <p>
+ * Paths are dot-separated lists of field names or array indexes, where
+ * <code>*</code> matches any field name or index, like
+ * <code>results.0.locations.0.latLng</code> or <code>data.iaqi.*.v</code>.
+ * If a path points to an object or an array, all its content is extracted.
+ * </p>
+ *
+ * @author Andrea Di Giorgi
+ */
+public class JsonFieldExtractor {
+
+	public JsonFieldExtractor(String... paths) {
+		for (String path : paths) {
+			Node node = _root;
+
+			for (String name : path.split("\\.")) {
+				node = node.addChild(name);
+			}
+
+			node.setAll(true);
+		}
+	}
+
+	/**
+	 * Returns a JSON object with the extracted fields, in the same position
+	 * they had in the original document. Array elements before an extracted
+	 * index are filled with <code>null</code>.
+	 */
+	public JsonObject extract(Buffer buffer) throws IOException {
+		try (InputStream inputStream = new ByteBufInputStream(
+				buffer.getByteBuf());
+			JsonParser jsonParser = _jsonFactory.createParser(inputStream)) {
+
+			if (jsonParser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException("Expected a JSON object");
+			}
+
+			return (JsonObject)_read(jsonParser, _root);
+		}
+	}
+
+	private Object _read(JsonParser jsonParser, Node node) throws IOException {
+		JsonToken jsonToken = jsonParser.getCurrentToken();
+
+		if (jsonToken == JsonToken.START_OBJECT) {
+			JsonObject jsonObject = new JsonObject();
+
+			while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = jsonParser.getCurrentName();
+
+				jsonParser.nextToken();
+
+				Node childNode = node.getChild(name);
+
+				if (childNode == null) {
+					jsonParser.skipChildren();
+				}
+				else {
+					jsonObject.put(name, _read(jsonParser, childNode));
+				}
+			}
+
+			return jsonObject;
+		}
+
+		if (jsonToken == JsonToken.START_ARRAY) {
+			JsonArray jsonArray = new JsonArray();
+
+			int index = 0;
+
+			while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+				Node childNode = node.getChild(String.valueOf(index));
+
+				if (childNode == null) {
+					jsonParser.skipChildren();
+				}
+				else {
+					while (jsonArray.size() < index) {
+						jsonArray.addNull();
+					}
+
+					jsonArray.add(_read(jsonParser, childNode));
+				}
+
+				index++;
+			}
+
+			return jsonArray;
+		}
+
+		if ((jsonToken == JsonToken.VALUE_FALSE) ||
+			(jsonToken == JsonToken.VALUE_TRUE)) {
+
+			return jsonParser.getBooleanValue();
+		}
+
+		if (jsonToken == JsonToken.VALUE_NUMBER_FLOAT) {
+			return jsonParser.getDoubleValue();
+		}
+
+		if (jsonToken == JsonToken.VALUE_NUMBER_INT) {
+			return jsonParser.getNumberValue();
+		}
+
+		if (jsonToken == JsonToken.VALUE_STRING) {
+			return jsonParser.getText();
+		}
+
+		return null;
+	}
+
+	private static final JsonFactory _jsonFactory = new JsonFactory();
+
+	private final Node _root = new Node();
+
+	private static class Node {
+
+		public Node addChild(String name) {
+			Node node = _children.get(name);
+
+			if (node == null) {
+				node = new Node();
+
+				_children.put(name, node);
+			}
+
+			return node;
+		}
+
+		public Node getChild(String name) {
+			if (_all) {
+				return this;
+			}
+
+			Node node = _children.get(name);
+
+			if (node == null) {
+				node = _children.get("*");
+			}
+
+			return node;
+		}
+
+		public void setAll(boolean all) {
+			_all = all;
+		}
+
+		private boolean _all;
+		private final Map<String, Node> _children = new HashMap<>();
+
+	}
+
+}
\ No newline at end of file
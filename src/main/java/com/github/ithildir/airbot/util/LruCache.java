@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache that evicts the least recently used entry once full. Every
+ * entry carries its own expiration time, and its value can be
+ * <code>null</code>, so that missing results can be cached as well. It is
+ * not thread-safe, and must be used by a single context.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class LruCache<K, V> implements MetricsProvider {
+
+	public LruCache(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException(
+				"Maximum size must be greater than 0");
+		}
+
+		_maxSize = maxSize;
+
+		_entries = new LinkedHashMap<K, Entry<V>>(16, 0.75F, true) {
+
+			@Override
+			protected boolean removeEldestEntry(
+				Map.Entry<K, Entry<V>> eldestMapEntry) {
+
+				if (size() > _maxSize) {
+					_evictionCount++;
+
+					return true;
+				}
+
+				return false;
+			}
+
+		};
+	}
+
+	/**
+	 * Returns the entry of the given key, or <code>null</code> if there is
+	 * none or it is expired.
+	 */
+	public Entry<V> getEntry(K key, long now) {
+		Entry<V> entry = _entries.get(key);
+
+		if ((entry != null) && (entry.getExpirationTime() <= now)) {
+			_entries.remove(key);
+
+			_evictionCount++;
+
+			entry = null;
+		}
+
+		if (entry == null) {
+			_missCount++;
+		}
+		else {
+			_hitCount++;
+		}
+
+		return entry;
+	}
+
+	public long getEvictionCount() {
+		return _evictionCount;
+	}
+
+	public long getHitCount() {
+		return _hitCount;
+	}
+
+	@Override
+	public JsonObject getMetrics() {
+		JsonObject jsonObject = new JsonObject();
+
+		jsonObject.put("evictionCount", _evictionCount);
+		jsonObject.put("hitCount", _hitCount);
+		jsonObject.put("missCount", _missCount);
+		jsonObject.put("size", size());
+
+		return jsonObject;
+	}
+
+	public long getMissCount() {
+		return _missCount;
+	}
+
+	public void put(K key, V value, long expirationTime, long now) {
+		if (expirationTime <= now) {
+			return;
+		}
+
+		_entries.put(key, new Entry<>(value, expirationTime));
+	}
+
+	public int size() {
+		return _entries.size();
+	}
+
+	private final Map<K, Entry<V>> _entries;
+	private long _evictionCount;
+	private long _hitCount;
+	private final int _maxSize;
+	private long _missCount;
+
+	public static class Entry<V> {
+
+		public Entry(V value, long expirationTime) {
+			_value = value;
+			_expirationTime = expirationTime;
+		}
+
+		public long getExpirationTime() {
+			return _expirationTime;
+		}
+
+		public V getValue() {
+			return _value;
+		}
+
+		private final long _expirationTime;
+		private final V _value;
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+/**
+ * Fixed-capacity ring buffer of AQI samples stored in primitive arrays, so
+ * that adding a sample never allocates. Samples are kept in ascending time
+ * order, and the oldest one is overwritten once the buffer is full.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class MeasurementRingBuffer {
+
+	public MeasurementRingBuffer(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException(
+				"Capacity must be greater than zero");
+		}
+
+		_aqis = new int[capacity];
+		_pollutantIds = new int[capacity];
+		_times = new long[capacity];
+	}
+
+	/**
+	 * Adds a sample, unless it is not newer than the latest one.
+	 *
+	 * @return <code>true</code> if the sample has been added
+	 */
+	public boolean add(long time, int aqi, int pollutantId) {
+		if ((_size > 0) && (time <= getTime(_size - 1))) {
+			return false;
+		}
+
+		int i = (_start + _size) % _times.length;
+
+		_aqis[i] = aqi;
+		_pollutantIds[i] = pollutantId;
+		_times[i] = time;
+
+		if (_size < _times.length) {
+			_size++;
+		}
+		else {
+			_start = (_start + 1) % _times.length;
+		}
+
+		return true;
+	}
+
+	public int capacity() {
+		return _times.length;
+	}
+
+	public int getAqi(int index) {
+		return _aqis[_getPosition(index)];
+	}
+
+	/**
+	 * Returns the index of the latest sample taken at or before the given
+	 * time, or <code>-1</code> if there are none.
+	 */
+	public int getIndex(long time) {
+		int low = 0;
+		int high = _size - 1;
+
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+
+			if (getTime(middle) <= time) {
+				low = middle + 1;
+			}
+			else {
+				high = middle - 1;
+			}
+		}
+
+		return high;
+	}
+
+	public int getPollutantId(int index) {
+		return _pollutantIds[_getPosition(index)];
+	}
+
+	public long getTime(int index) {
+		return _times[_getPosition(index)];
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	private int _getPosition(int index) {
+		if ((index < 0) || (index >= _size)) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+
+		return (_start + index) % _times.length;
+	}
+
+	private final int[] _aqis;
+	private final int[] _pollutantIds;
+	private int _size;
+	private int _start;
+	private final long[] _times;
+
+}
\ No newline at end of file
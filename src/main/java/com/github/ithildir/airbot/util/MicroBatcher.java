@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Gathers the items added within a short window, or until the maximum batch
+ * size is reached, and executes a single operation for all of them. The
+ * operation must return one result for each item, in the same order, which
+ * is then passed to the handler of the item. It is not thread-safe, and must
+ * be used by a single context.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class MicroBatcher<K, V> implements MetricsProvider {
+
+	public MicroBatcher(
+		Vertx vertx, int maxSize, long maxDelay,
+		BiConsumer<List<K>, Handler<AsyncResult<List<V>>>> operation) {
+
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException(
+				"Maximum size must be greater than 0");
+		}
+
+		_vertx = vertx;
+		_maxSize = maxSize;
+		_maxDelay = maxDelay;
+		_operation = operation;
+	}
+
+	public void add(K key, Handler<AsyncResult<V>> handler) {
+		_keys.add(key);
+		_handlers.add(handler);
+
+		if ((_keys.size() >= _maxSize) || (_maxDelay <= 0)) {
+			_flush();
+		}
+		else if (_timerId < 0) {
+			_timerId = _vertx.setTimer(
+				_maxDelay,
+				id -> {
+					_timerId = -1;
+
+					_flush();
+				});
+		}
+	}
+
+	public long getBatchCount() {
+		return _batchCount;
+	}
+
+	public long getItemCount() {
+		return _itemCount;
+	}
+
+	@Override
+	public JsonObject getMetrics() {
+		JsonObject jsonObject = new JsonObject();
+
+		jsonObject.put("batchCount", _batchCount);
+		jsonObject.put("itemCount", _itemCount);
+		jsonObject.put("size", size());
+
+		return jsonObject;
+	}
+
+	public int size() {
+		return _keys.size();
+	}
+
+	private void _flush() {
+		if (_timerId >= 0) {
+			_vertx.cancelTimer(_timerId);
+
+			_timerId = -1;
+		}
+
+		if (_keys.isEmpty()) {
+			return;
+		}
+
+		List<K> keys = _keys;
+		List<Handler<AsyncResult<V>>> handlers = _handlers;
+
+		_keys = new ArrayList<>();
+		_handlers = new ArrayList<>();
+
+		_batchCount++;
+		_itemCount += keys.size();
+
+		_operation.accept(
+			keys,
+			asyncResult -> {
+				if (asyncResult.failed()) {
+					for (Handler<AsyncResult<V>> handler : handlers) {
+						handler.handle(
+							Future.failedFuture(asyncResult.cause()));
+					}
+
+					return;
+				}
+
+				List<V> values = asyncResult.result();
+
+				if (values.size() != keys.size()) {
+					IllegalStateException ise = new IllegalStateException(
+						"Expected " + keys.size() + " results instead of " +
+							values.size());
+
+					for (Handler<AsyncResult<V>> handler : handlers) {
+						handler.handle(Future.failedFuture(ise));
+					}
+
+					return;
+				}
+
+				for (int i = 0; i < handlers.size(); i++) {
+					Handler<AsyncResult<V>> handler = handlers.get(i);
+
+					handler.handle(Future.succeededFuture(values.get(i)));
+				}
+			});
+	}
+
+	private long _batchCount;
+	private List<Handler<AsyncResult<V>>> _handlers = new ArrayList<>();
+	private long _itemCount;
+	private List<K> _keys = new ArrayList<>();
+	private final long _maxDelay;
+	private final int _maxSize;
+	private final BiConsumer<List<K>, Handler<AsyncResult<List<V>>>>
+		_operation;
+	private long _timerId = -1;
+	private final Vertx _vertx;
+
+}
\ No newline at end of file
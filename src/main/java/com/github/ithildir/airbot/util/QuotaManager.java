@@ -0,0 +1,302 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.serviceproxy.ServiceException;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Token bucket that schedules the requests sent to a provider with a quota.
+ * Requests that cannot be sent right away are queued, interactive ones ahead
+ * of background ones, and fail with {@link #QUOTA_EXHAUSTED_FAILURE_CODE} if
+ * they would have to wait longer than the maximum queue time. It is not
+ * thread-safe, and must be used by a single context.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class QuotaManager implements MetricsProvider {
+
+	public static final int PRIORITY_BACKGROUND = 1;
+
+	public static final int PRIORITY_INTERACTIVE = 0;
+
+	/**
+	 * Failure code of the {@link ServiceException} returned when the quota is
+	 * exhausted. It is negative, so it never clashes with the HTTP status
+	 * codes returned by the providers.
+	 */
+	public static final int QUOTA_EXHAUSTED_FAILURE_CODE = -429;
+
+	public QuotaManager(
+		Vertx vertx, String name, double rate, int burst, long maxQueueTime) {
+
+		if (rate <= 0) {
+			throw new IllegalArgumentException(
+				"Rate must be greater than zero");
+		}
+
+		_vertx = vertx;
+		_name = name;
+		_rate = rate / 1000;
+		_burst = Math.max(burst, 1);
+		_maxQueueTime = maxQueueTime;
+
+		_lastRefillTime = System.currentTimeMillis();
+		_tokens = _burst;
+	}
+
+	/**
+	 * Calls the handler as soon as a request can be sent to the provider.
+	 */
+	public void acquire(int priority, Handler<AsyncResult<Void>> handler) {
+		long now = System.currentTimeMillis();
+
+		_refill(now);
+
+		int queued = _interactiveRequests.size();
+
+		if (priority != PRIORITY_INTERACTIVE) {
+			queued += _backgroundRequests.size();
+		}
+
+		if ((queued == 0) && (_tokens >= 1)) {
+			_tokens--;
+
+			_grantedCount++;
+
+			handler.handle(Future.succeededFuture());
+
+			return;
+		}
+
+		double wait = (queued + 1 - _tokens) / _rate;
+
+		if (wait > _maxQueueTime) {
+			_rejectedCount++;
+
+			if (_logger.isDebugEnabled()) {
+				_logger.debug(
+					"{0} quota exhausted, rejecting request with {1} " +
+						"requests queued",
+					_name, queued);
+			}
+
+			handler.handle(
+				ServiceException.fail(
+					QUOTA_EXHAUSTED_FAILURE_CODE,
+					_name + " quota exhausted"));
+
+			return;
+		}
+
+		Request request = new Request(handler, now + _maxQueueTime);
+
+		if (priority == PRIORITY_INTERACTIVE) {
+			_interactiveRequests.add(request);
+		}
+		else {
+			_backgroundRequests.add(request);
+		}
+
+		_queuedCount++;
+
+		_schedule();
+	}
+
+	public long getExpiredCount() {
+		return _expiredCount;
+	}
+
+	public long getGrantedCount() {
+		return _grantedCount;
+	}
+
+	@Override
+	public JsonObject getMetrics() {
+		JsonObject jsonObject = new JsonObject();
+
+		jsonObject.put("expiredCount", _expiredCount);
+		jsonObject.put("grantedCount", _grantedCount);
+		jsonObject.put("queueSize", getQueueSize());
+		jsonObject.put("queuedCount", _queuedCount);
+		jsonObject.put("rejectedCount", _rejectedCount);
+		jsonObject.put("tokens", getTokens());
+
+		return jsonObject;
+	}
+
+	public int getQueueSize() {
+		return _interactiveRequests.size() + _backgroundRequests.size();
+	}
+
+	public long getQueuedCount() {
+		return _queuedCount;
+	}
+
+	public long getRejectedCount() {
+		return _rejectedCount;
+	}
+
+	public double getTokens() {
+		_refill(System.currentTimeMillis());
+
+		return _tokens;
+	}
+
+	/**
+	 * Takes a token if one is available right away and no request is queued.
+	 *
+	 * @return <code>true</code> if a request can be sent to the provider
+	 */
+	public boolean tryAcquire() {
+		_refill(System.currentTimeMillis());
+
+		if ((getQueueSize() > 0) || (_tokens < 1)) {
+			return false;
+		}
+
+		_tokens--;
+
+		_grantedCount++;
+
+		return true;
+	}
+
+	private void _dispatch() {
+		_timerId = -1;
+
+		long now = System.currentTimeMillis();
+
+		_refill(now);
+
+		_dispatch(_interactiveRequests, now);
+		_dispatch(_backgroundRequests, now);
+
+		_schedule();
+	}
+
+	private void _dispatch(Queue<Request> requests, long now) {
+		while (!requests.isEmpty()) {
+			Request request = requests.peek();
+
+			if (request.getDeadline() < now) {
+				requests.poll();
+
+				_expiredCount++;
+
+				request.fail(_name);
+
+				continue;
+			}
+
+			if (_tokens < 1) {
+				return;
+			}
+
+			requests.poll();
+
+			_tokens--;
+
+			_grantedCount++;
+
+			request.grant();
+		}
+	}
+
+	private void _refill(long now) {
+		long elapsed = now - _lastRefillTime;
+
+		if (elapsed <= 0) {
+			return;
+		}
+
+		_tokens = Math.min(_burst, _tokens + elapsed * _rate);
+
+		_lastRefillTime = now;
+	}
+
+	private void _schedule() {
+		if ((_timerId != -1) || (getQueueSize() == 0)) {
+			return;
+		}
+
+		long delay = (long)Math.ceil((1 - _tokens) / _rate);
+
+		_timerId = _vertx.setTimer(Math.max(delay, 1), timerId -> _dispatch());
+	}
+
+	private static final Logger _logger = LoggerFactory.getLogger(
+		QuotaManager.class);
+
+	private final Queue<Request> _backgroundRequests = new ArrayDeque<>();
+	private final int _burst;
+	private long _expiredCount;
+	private long _grantedCount;
+	private final Queue<Request> _interactiveRequests = new ArrayDeque<>();
+	private long _lastRefillTime;
+	private final long _maxQueueTime;
+	private final String _name;
+	private long _queuedCount;
+	private final double _rate;
+	private long _rejectedCount;
+	private long _timerId = -1;
+	private double _tokens;
+	private final Vertx _vertx;
+
+	private static class Request {
+
+		public Request(Handler<AsyncResult<Void>> handler, long deadline) {
+			_handler = handler;
+			_deadline = deadline;
+		}
+
+		public void fail(String name) {
+			_handler.handle(
+				ServiceException.fail(
+					QUOTA_EXHAUSTED_FAILURE_CODE,
+					name + " quota exhausted while queued"));
+		}
+
+		public long getDeadline() {
+			return _deadline;
+		}
+
+		public void grant() {
+			_handler.handle(Future.succeededFuture());
+		}
+
+		private final long _deadline;
+		private final Handler<AsyncResult<Void>> _handler;
+
+	}
+
+}
\ No newline at end of file
@@ -22,54 +22,255 @@
 
 package com.github.ithildir.airbot.util;
 
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.parsetools.RecordParser;
 import io.vertx.core.streams.WriteStream;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
 /**
+ * Write stream that splits the written data into delimited records. If a
+ * {@link Vertx} instance is provided, records are parsed on the worker pool,
+ * one bounded chunk at a time, and the stream reports itself full while too
+ * much data is waiting to be parsed. The trailing record is flushed on {@link
+ * #end()}, and the outcome of the parsing is reported to the handler passed to
+ * {@link #resultHandler(Handler)}.
+ *
  * @author Andrea Di Giorgi
  */
 public class RecordParserWriteStream implements WriteStream<Buffer> {
 
-	public RecordParserWriteStream(RecordParser recordParser) {
-		_recordParser = recordParser;
+	public RecordParserWriteStream(
+		String delimiter, Handler<Buffer> recordHandler) {
+
+		this(delimiter, recordHandler, null);
+	}
+
+	public RecordParserWriteStream(
+		String delimiter, Handler<Buffer> recordHandler, Vertx vertx) {
+
+		_delimiter = Buffer.buffer(delimiter);
+		_recordParser = RecordParser.newDelimited(_delimiter, recordHandler);
+		_vertx = vertx;
 	}
 
 	@Override
 	public WriteStream<Buffer> drainHandler(Handler<Void> handler) {
+		_drainHandler = handler;
+
 		return this;
 	}
 
 	@Override
 	public void end() {
+		if (_ended) {
+			return;
+		}
+
+		_ended = true;
+
+		if ((_lastByte != null) &&
+			(_lastByte != _delimiter.getByte(_delimiter.length() - 1))) {
 
-		// Nothing to do
+			_enqueue(_delimiter);
+		}
 
+		_process();
 	}
 
 	@Override
 	public WriteStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+		_exceptionHandler = handler;
+
+		return this;
+	}
+
+	public RecordParserWriteStream resultHandler(
+		Handler<AsyncResult<Void>> handler) {
+
+		_resultHandler = handler;
+
+		return this;
+	}
+
+	public RecordParserWriteStream setChunkSize(int chunkSize) {
+		_chunkSize = chunkSize;
+
 		return this;
 	}
 
 	@Override
 	public WriteStream<Buffer> setWriteQueueMaxSize(int writeQueueMaxSize) {
+		_writeQueueMaxSize = writeQueueMaxSize;
+
 		return this;
 	}
 
 	@Override
 	public WriteStream<Buffer> write(Buffer buffer) {
-		_recordParser.handle(buffer);
+		if (_ended || (buffer.length() == 0)) {
+			return this;
+		}
+
+		_lastByte = buffer.getByte(buffer.length() - 1);
+
+		_enqueue(buffer);
+
+		_process();
 
 		return this;
 	}
 
 	@Override
 	public boolean writeQueueFull() {
-		return false;
+		return _queueSize >= _writeQueueMaxSize;
+	}
+
+	private void _complete(Throwable throwable) {
+		if (_completed) {
+			return;
+		}
+
+		_completed = true;
+
+		_queue.clear();
+
+		_queueSize = 0;
+
+		if ((throwable != null) && (_exceptionHandler != null)) {
+			_exceptionHandler.handle(throwable);
+		}
+
+		if (_resultHandler != null) {
+			if (throwable != null) {
+				_resultHandler.handle(Future.failedFuture(throwable));
+			}
+			else {
+				_resultHandler.handle(Future.succeededFuture());
+			}
+		}
 	}
 
+	private void _enqueue(Buffer buffer) {
+		if (_completed) {
+			return;
+		}
+
+		_queue.add(buffer);
+
+		_queueSize += buffer.length();
+	}
+
+	private void _parse(List<Buffer> buffers) {
+		for (Buffer buffer : buffers) {
+			_recordParser.handle(buffer);
+		}
+	}
+
+	private List<Buffer> _poll() {
+		List<Buffer> buffers = new ArrayList<>();
+
+		int size = 0;
+
+		while (!_queue.isEmpty() && (size < _chunkSize)) {
+			Buffer buffer = _queue.poll();
+
+			buffers.add(buffer);
+
+			size += buffer.length();
+		}
+
+		_queueSize -= size;
+
+		return buffers;
+	}
+
+	private void _process() {
+		if (_completed || _processing) {
+			return;
+		}
+
+		if (_queue.isEmpty()) {
+			if (_ended) {
+				_complete(null);
+			}
+
+			return;
+		}
+
+		List<Buffer> buffers = _poll();
+
+		if (_vertx == null) {
+			try {
+				_parse(buffers);
+			}
+			catch (Throwable t) {
+				_complete(t);
+
+				return;
+			}
+
+			_process();
+
+			return;
+		}
+
+		_processing = true;
+
+		_vertx.<Void>executeBlocking(
+			future -> {
+				_parse(buffers);
+
+				future.complete();
+			},
+			false,
+			asyncResult -> {
+				_processing = false;
+
+				if (asyncResult.failed()) {
+					_complete(asyncResult.cause());
+
+					return;
+				}
+
+				Handler<Void> drainHandler = _drainHandler;
+
+				if ((drainHandler != null) &&
+					(_queueSize < (_writeQueueMaxSize / 2))) {
+
+					_drainHandler = null;
+
+					drainHandler.handle(null);
+				}
+
+				_process();
+			});
+	}
+
+	private static final int _DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+	private static final int _DEFAULT_WRITE_QUEUE_MAX_SIZE = 1024 * 1024;
+
+	private int _chunkSize = _DEFAULT_CHUNK_SIZE;
+	private boolean _completed;
+	private final Buffer _delimiter;
+	private Handler<Void> _drainHandler;
+	private boolean _ended;
+	private Handler<Throwable> _exceptionHandler;
+	private Byte _lastByte;
+	private boolean _processing;
+	private final Queue<Buffer> _queue = new ArrayDeque<>();
+	private int _queueSize;
 	private final RecordParser _recordParser;
+	private Handler<AsyncResult<Void>> _resultHandler;
+	private final Vertx _vertx;
+	private int _writeQueueMaxSize = _DEFAULT_WRITE_QUEUE_MAX_SIZE;
 
 }
\ No newline at end of file
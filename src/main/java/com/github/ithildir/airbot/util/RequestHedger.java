@@ -0,0 +1,260 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sends a duplicate of a request that has not completed within a percentile
+ * of the latencies observed so far, and completes with whichever succeeds
+ * first. Hedges are limited by a small token bucket that earns the maximum
+ * hedge rate for every request, so the cap applies to recent requests only,
+ * and every hedge must also be allowed by the given permit, such as a quota.
+ * It is not thread-safe, and must be used by a single context.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class RequestHedger implements MetricsProvider {
+
+	public RequestHedger(
+		Vertx vertx, String name, double percentile, double maxHedgeRate,
+		BooleanSupplier hedgePermit) {
+
+		_vertx = vertx;
+		_name = name;
+		_percentile = percentile;
+		_maxHedgeRate = maxHedgeRate;
+		_hedgePermit = hedgePermit;
+	}
+
+	public <T> void execute(
+		Handler<Handler<AsyncResult<T>>> operation,
+		Handler<AsyncResult<T>> handler) {
+
+		_requestCount++;
+
+		_hedgeTokens = Math.min(
+			_hedgeTokens + _maxHedgeRate, _MAX_HEDGE_TOKENS);
+
+		Request<T> request = new Request<>(handler);
+
+		long startTime = System.currentTimeMillis();
+
+		operation.handle(
+			asyncResult -> _complete(request, startTime, asyncResult));
+
+		if (request.isCompleted()) {
+			return;
+		}
+
+		request.setTimerId(
+			_vertx.setTimer(
+				_delay,
+				timerId -> {
+					request.setTimerId(-1);
+
+					_hedge(operation, request);
+				}));
+	}
+
+	public long getDelay() {
+		return _delay;
+	}
+
+	public long getHedgeCount() {
+		return _hedgeCount;
+	}
+
+	public long getHedgeWinCount() {
+		return _hedgeWinCount;
+	}
+
+	@Override
+	public JsonObject getMetrics() {
+		JsonObject jsonObject = new JsonObject();
+
+		jsonObject.put("delay", getDelay());
+		jsonObject.put("hedgeCount", _hedgeCount);
+		jsonObject.put("hedgeTokens", _hedgeTokens);
+		jsonObject.put("hedgeWinCount", _hedgeWinCount);
+		jsonObject.put("requestCount", _requestCount);
+
+		return jsonObject;
+	}
+
+	public long getRequestCount() {
+		return _requestCount;
+	}
+
+	private <T> void _complete(
+		Request<T> request, long startTime, AsyncResult<T> asyncResult) {
+
+		if (asyncResult.succeeded()) {
+			_record(System.currentTimeMillis() - startTime);
+		}
+
+		request.complete(asyncResult, _vertx);
+	}
+
+	private <T> void _hedge(
+		Handler<Handler<AsyncResult<T>>> operation, Request<T> request) {
+
+		if (request.isCompleted() || (_hedgeTokens < 1) ||
+			!_hedgePermit.getAsBoolean()) {
+
+			return;
+		}
+
+		_hedgeCount++;
+		_hedgeTokens--;
+
+		if (_logger.isDebugEnabled()) {
+			_logger.debug("Hedging {0} request after {1} ms", _name, _delay);
+		}
+
+		request.setPending(2);
+
+		long startTime = System.currentTimeMillis();
+
+		operation.handle(
+			asyncResult -> {
+				if (asyncResult.succeeded() && !request.isCompleted()) {
+					_hedgeWinCount++;
+				}
+
+				_complete(request, startTime, asyncResult);
+			});
+	}
+
+	private void _record(long latency) {
+		_latencies[_latencyIndex] = latency;
+
+		_latencyIndex = (_latencyIndex + 1) % _latencies.length;
+
+		if (_latencyCount < _latencies.length) {
+			_latencyCount++;
+		}
+
+		if ((_latencyCount < _MIN_LATENCY_COUNT) ||
+			((_latencyIndex % _MIN_LATENCY_COUNT) != 0)) {
+
+			return;
+		}
+
+		long[] latencies = Arrays.copyOf(_latencies, _latencyCount);
+
+		Arrays.sort(latencies);
+
+		int index = (int)Math.ceil(_percentile * _latencyCount) - 1;
+
+		index = Math.max(0, Math.min(index, _latencyCount - 1));
+
+		_delay = Math.max(latencies[index], _MIN_DELAY);
+	}
+
+	private static final long _INITIAL_DELAY = 1000;
+
+	/**
+	 * Maximum number of hedges that can be saved up while the provider is
+	 * fast, so that a slowdown duplicates only a few requests before the
+	 * hedge rate is enforced.
+	 */
+	private static final double _MAX_HEDGE_TOKENS = 5;
+
+	private static final int _MAX_LATENCY_COUNT = 256;
+
+	private static final long _MIN_DELAY = 50;
+
+	private static final int _MIN_LATENCY_COUNT = 16;
+
+	private static final Logger _logger = LoggerFactory.getLogger(
+		RequestHedger.class);
+
+	private long _delay = _INITIAL_DELAY;
+	private long _hedgeCount;
+	private final BooleanSupplier _hedgePermit;
+	private double _hedgeTokens = _MAX_HEDGE_TOKENS;
+	private long _hedgeWinCount;
+	private final long[] _latencies = new long[_MAX_LATENCY_COUNT];
+	private int _latencyCount;
+	private int _latencyIndex;
+	private final double _maxHedgeRate;
+	private final String _name;
+	private final double _percentile;
+	private long _requestCount;
+	private final Vertx _vertx;
+
+	private static class Request<T> {
+
+		public Request(Handler<AsyncResult<T>> handler) {
+			_handler = handler;
+		}
+
+		public void complete(AsyncResult<T> asyncResult, Vertx vertx) {
+			if (_completed) {
+				return;
+			}
+
+			_pending--;
+
+			if (asyncResult.failed() && (_pending > 0)) {
+				return;
+			}
+
+			_completed = true;
+
+			if (_timerId != -1) {
+				vertx.cancelTimer(_timerId);
+			}
+
+			_handler.handle(asyncResult);
+		}
+
+		public boolean isCompleted() {
+			return _completed;
+		}
+
+		public void setPending(int pending) {
+			_pending = pending;
+		}
+
+		public void setTimerId(long timerId) {
+			_timerId = timerId;
+		}
+
+		private boolean _completed;
+		private final Handler<AsyncResult<T>> _handler;
+		private int _pending = 1;
+		private long _timerId = -1;
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coalesces concurrent executions of the same operation, so that callers
+ * asking for a key that is already in flight wait for the pending execution
+ * instead of starting a new one. It is not thread-safe, and must be used by a
+ * single context.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class SingleFlight<K, V> implements MetricsProvider {
+
+	public void execute(
+		K key, Handler<Handler<AsyncResult<V>>> operation,
+		Handler<AsyncResult<V>> handler) {
+
+		List<Handler<AsyncResult<V>>> handlers = _handlers.get(key);
+
+		if (handlers != null) {
+			handlers.add(handler);
+
+			_coalescedCount++;
+
+			return;
+		}
+
+		handlers = new ArrayList<>();
+
+		handlers.add(handler);
+
+		_handlers.put(key, handlers);
+
+		try {
+			operation.handle(asyncResult -> _complete(key, asyncResult));
+		}
+		catch (RuntimeException re) {
+			_handlers.remove(key);
+
+			throw re;
+		}
+	}
+
+	public long getCoalescedCount() {
+		return _coalescedCount;
+	}
+
+	@Override
+	public JsonObject getMetrics() {
+		JsonObject jsonObject = new JsonObject();
+
+		jsonObject.put("coalescedCount", _coalescedCount);
+		jsonObject.put("size", size());
+
+		return jsonObject;
+	}
+
+	public int size() {
+		return _handlers.size();
+	}
+
+	private void _complete(K key, AsyncResult<V> asyncResult) {
+		List<Handler<AsyncResult<V>>> handlers = _handlers.remove(key);
+
+		if (handlers == null) {
+			return;
+		}
+
+		for (Handler<AsyncResult<V>> handler : handlers) {
+			handler.handle(asyncResult);
+		}
+	}
+
+	private long _coalescedCount;
+	private final Map<K, List<Handler<AsyncResult<V>>>> _handlers =
+		new HashMap<>();
+
+}
\ No newline at end of file
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Canonicalizes strings read from byte buffers, so that repeated values share
+ * the same {@link String} instance and a string is allocated only the first
+ * time its bytes are seen. The pool is cleared once it reaches its maximum
+ * size. Instances are not thread-safe.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class StringPool {
+
+	public StringPool(int maxSize) {
+		_maxSize = maxSize;
+
+		_init(_INITIAL_CAPACITY);
+	}
+
+	public String get(Buffer buffer, int start, int end) {
+		int hash = BufferUtil.hash(buffer, start, end);
+
+		int mask = _keys.length - 1;
+
+		int slot = hash & mask;
+
+		while (_keys[slot] != null) {
+			if ((_hashes[slot] == hash) &&
+				BufferUtil.equals(buffer, start, end, _keys[slot])) {
+
+				return _values[slot];
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		if (_size >= _maxSize) {
+			_init(_INITIAL_CAPACITY);
+
+			return get(buffer, start, end);
+		}
+
+		byte[] key = buffer.getBytes(start, end);
+
+		String value = new String(key, StandardCharsets.UTF_8);
+
+		_hashes[slot] = hash;
+		_keys[slot] = key;
+		_values[slot] = value;
+
+		_size++;
+
+		if ((_size * 2) > _keys.length) {
+			_resize();
+		}
+
+		return value;
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	private void _init(int capacity) {
+		_hashes = new int[capacity];
+		_keys = new byte[capacity][];
+		_size = 0;
+		_values = new String[capacity];
+	}
+
+	private void _resize() {
+		int[] hashes = _hashes;
+		byte[][] keys = _keys;
+		String[] values = _values;
+
+		_hashes = new int[keys.length * 2];
+		_keys = new byte[keys.length * 2][];
+		_values = new String[keys.length * 2];
+
+		int mask = _keys.length - 1;
+
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] == null) {
+				continue;
+			}
+
+			int slot = hashes[i] & mask;
+
+			while (_keys[slot] != null) {
+				slot = (slot + 1) & mask;
+			}
+
+			_hashes[slot] = hashes[i];
+			_keys[slot] = keys[i];
+			_values[slot] = values[i];
+		}
+	}
+
+	private static final int _INITIAL_CAPACITY = 256;
+
+	private int[] _hashes;
+	private byte[][] _keys;
+	private final int _maxSize;
+	private int _size;
+	private String[] _values;
+
+}
\ No newline at end of file
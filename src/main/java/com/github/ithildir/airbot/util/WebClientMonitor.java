@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClientOptions;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the usage of the connection pool of a web client, by counting the
+ * requests in flight against the number of requests that the pool can serve
+ * at the same time without queueing.
+ *
+ * @author Andrea Di Giorgi
+ */
+public class WebClientMonitor implements MetricsProvider {
+
+	public WebClientMonitor(String name, WebClientOptions webClientOptions) {
+		_name = name;
+
+		long capacity;
+
+		if (webClientOptions.getProtocolVersion() == HttpVersion.HTTP_2) {
+			int multiplexingLimit =
+				webClientOptions.getHttp2MultiplexingLimit();
+
+			if (multiplexingLimit <= 0) {
+				multiplexingLimit = Integer.MAX_VALUE;
+			}
+
+			capacity =
+				(long)webClientOptions.getHttp2MaxPoolSize() *
+					multiplexingLimit;
+		}
+		else {
+			int pipeliningLimit = 1;
+
+			if (webClientOptions.isPipelining()) {
+				pipeliningLimit = webClientOptions.getPipeliningLimit();
+			}
+
+			capacity =
+				(long)webClientOptions.getMaxPoolSize() * pipeliningLimit;
+		}
+
+		_capacity = (int)Math.min(capacity, Integer.MAX_VALUE);
+	}
+
+	public int getActiveCount() {
+		return _activeCount.get();
+	}
+
+	public int getCapacity() {
+		return _capacity;
+	}
+
+	@Override
+	public JsonObject getMetrics() {
+		JsonObject jsonObject = new JsonObject();
+
+		jsonObject.put("activeCount", getActiveCount());
+		jsonObject.put("capacity", getCapacity());
+		jsonObject.put("peakActiveCount", getPeakActiveCount());
+		jsonObject.put("requestCount", getRequestCount());
+		jsonObject.put("saturatedCount", getSaturatedCount());
+
+		return jsonObject;
+	}
+
+	public int getPeakActiveCount() {
+		return _peakActiveCount.get();
+	}
+
+	public long getRequestCount() {
+		return _requestCount.get();
+	}
+
+	/**
+	 * Returns the number of requests that had to wait for a connection,
+	 * because the pool was already saturated when they were sent.
+	 */
+	public long getSaturatedCount() {
+		return _saturatedCount.get();
+	}
+
+	public <T> void send(
+		HttpRequest<T> httpRequest,
+		Handler<AsyncResult<HttpResponse<T>>> handler) {
+
+		int activeCount = _activeCount.incrementAndGet();
+
+		_requestCount.incrementAndGet();
+
+		_peakActiveCount.accumulateAndGet(activeCount, Math::max);
+
+		if (activeCount > _capacity) {
+			long saturatedCount = _saturatedCount.incrementAndGet();
+
+			if (_logger.isDebugEnabled()) {
+				_logger.debug(
+					"{0} connection pool saturated with {1} active requests " +
+						"and capacity {2}, {3} requests queued so far",
+					_name, activeCount, _capacity, saturatedCount);
+			}
+		}
+
+		httpRequest.send(
+			asyncResult -> {
+				_activeCount.decrementAndGet();
+
+				handler.handle(asyncResult);
+			});
+	}
+
+	private static final Logger _logger = LoggerFactory.getLogger(
+		WebClientMonitor.class);
+
+	private final AtomicInteger _activeCount = new AtomicInteger();
+	private final int _capacity;
+	private final String _name;
+	private final AtomicInteger _peakActiveCount = new AtomicInteger();
+	private final AtomicLong _requestCount = new AtomicLong();
+	private final AtomicLong _saturatedCount = new AtomicLong();
+
+}
\ No newline at end of file
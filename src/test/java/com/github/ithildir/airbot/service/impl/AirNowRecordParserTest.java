@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.service.impl;
+
+import com.github.ithildir.airbot.model.Measurement;
+
+import com.github.ithildir.airbot.util.StringPool;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.time.ZonedDateTime;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class AirNowRecordParserTest {
+
+	@Test
+	public void testHandle() {
+		AirNowSnapshotBuilder airNowSnapshotBuilder =
+			new AirNowSnapshotBuilder();
+
+		AirNowTimeDecoder airNowTimeDecoder = new AirNowTimeDecoder();
+
+		AirNowRecordParser airNowRecordParser = new AirNowRecordParser(
+			airNowSnapshotBuilder, airNowTimeDecoder, new StringPool(16));
+
+		for (String record : _RECORDS) {
+			airNowRecordParser.handle(Buffer.buffer(record));
+		}
+
+		AirNowSnapshot airNowSnapshot = airNowSnapshotBuilder.build(
+			null, null, 0);
+
+		Assert.assertEquals(3, airNowSnapshot.size());
+		Assert.assertEquals(1, airNowTimeDecoder.getHits());
+		Assert.assertEquals(3, airNowTimeDecoder.getMisses());
+
+		Measurement measurement = airNowSnapshot.getMeasurement(42.6, -73.7);
+
+		Assert.assertEquals("Albany", measurement.getCity());
+		Assert.assertEquals(37, measurement.getAqi());
+		Assert.assertEquals("o3", measurement.getMainPollutant());
+		Assert.assertNull(measurement.getComments());
+
+		ZonedDateTime zonedDateTime = ZonedDateTime.parse(
+			"2017-06-20T13:00-04:00[America/New_York]");
+
+		Assert.assertEquals(
+			zonedDateTime.toInstant().toEpochMilli(), measurement.getTime());
+
+		ZonedDateTime forecastZonedDateTime = ZonedDateTime.parse(
+			"2017-06-21T00:00-04:00[America/New_York]");
+
+		long forecastTime = forecastZonedDateTime.toInstant().toEpochMilli();
+
+		Measurement forecast = airNowSnapshot.getForecast(
+			42.6, -73.7, forecastTime + 1000);
+
+		Assert.assertEquals("Albany", forecast.getCity());
+		Assert.assertEquals(forecastTime, forecast.getTime());
+		Assert.assertEquals(45, forecast.getAqi());
+		Assert.assertEquals("o3", forecast.getMainPollutant());
+		Assert.assertEquals("Sunny", forecast.getComments());
+
+		Assert.assertNull(
+			airNowSnapshot.getForecast(42.6, -73.7, forecastTime - 1000));
+
+		forecast = airNowSnapshot.getForecast(
+			42.9, -78.9, forecastTime + 1000);
+
+		Assert.assertEquals("Albany", forecast.getCity());
+
+		measurement = airNowSnapshot.getMeasurement(34, -118.2);
+
+		Assert.assertEquals("Los Angeles", measurement.getCity());
+		Assert.assertEquals(55, measurement.getAqi());
+		Assert.assertEquals("pm25", measurement.getMainPollutant());
+		Assert.assertEquals("Smoke", measurement.getComments());
+	}
+
+	private static final String[] _RECORDS = {
+		"06/20/17|06/20/17|13:00|EDT|-4|O|Y|Albany|NY|42.6525|-73.7572|" +
+			"OZONE|37|Good|No||NYDEC\r",
+		"06/20/17|06/20/17|13:00|EDT|-4|O|Y|Buffalo|NY|42.8864|-78.8784|" +
+			"OZONE|41|Good|No||NYDEC",
+		"06/20/17|06/20/17|13:00|EDT|-4|O|N|Albany|NY|42.6525|-73.7572|" +
+			"PM2.5|12|Good|No||NYDEC",
+		"06/20/17|06/21/17||EDT|-4|F|Y|Albany|NY|42.6525|-73.7572|OZONE|" +
+			"45|Good|No|Sunny|NYDEC",
+		"06/20/17|06/21/17||EDT|-4|F|Y|Buffalo|NY|42.8864|-78.8784|OZONE|" +
+			"|Good|No||NYDEC",
+		"06/20/17|06/20/17|10:00|PDT|-7|O|Y|Los Angeles|CA|34.0522|" +
+			"-118.2437|PM2.5|55|Moderate|No|Smoke|SCAQMD",
+		"06/20/17|06/20/17|10:00|PDT|-7|O|Y|Nowhere| |0|0|PM2.5|55|" +
+			"Moderate|No||",
+		""
+	};
+
+}
\ No newline at end of file
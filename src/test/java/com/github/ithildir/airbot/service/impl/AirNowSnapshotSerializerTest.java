@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.service.impl;
+
+import com.github.ithildir.airbot.model.Measurement;
+
+import java.io.File;
+
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class AirNowSnapshotSerializerTest {
+
+	@Test
+	public void testReadWrite() throws Exception {
+		AirNowSnapshotBuilder airNowSnapshotBuilder =
+			new AirNowSnapshotBuilder();
+
+		airNowSnapshotBuilder.addObservation(
+			"Albany", 42.6525, -73.7572,
+			new Measurement(
+				"Albany", 1497978000000L, 37, "o3", Collections.emptyMap(),
+				null));
+		airNowSnapshotBuilder.addObservation(
+			"Los Angeles", 34.0522, -118.2437,
+			new Measurement(
+				"Los Angeles", 1497978000000L, 55, "pm25",
+				Collections.emptyMap(), "Smoke"));
+
+		airNowSnapshotBuilder.addForecast(
+			"Fresno", 36.7468, -119.7726,
+			new Measurement(
+				"Fresno", 1498028400000L, 101, "o3", Collections.emptyMap(),
+				"Hot"));
+
+		AirNowSnapshot airNowSnapshot = airNowSnapshotBuilder.build(
+			"\"etag\"", "Tue, 20 Jun 2017 17:30:00 GMT", 1497979800000L);
+
+		File file = new File(temporaryFolder.getRoot(), "airnow.snapshot");
+
+		AirNowSnapshotSerializer.write(file.toPath(), airNowSnapshot);
+
+		AirNowSnapshot readAirNowSnapshot = AirNowSnapshotSerializer.read(
+			file.toPath());
+
+		Assert.assertEquals(
+			airNowSnapshot.getBuildTime(), readAirNowSnapshot.getBuildTime());
+		Assert.assertEquals(
+			airNowSnapshot.getETag(), readAirNowSnapshot.getETag());
+		Assert.assertEquals(
+			airNowSnapshot.getLastModified(),
+			readAirNowSnapshot.getLastModified());
+		Assert.assertEquals(3, readAirNowSnapshot.size());
+
+		Measurement measurement = readAirNowSnapshot.getMeasurement(34, -118);
+
+		Assert.assertEquals("Los Angeles", measurement.getCity());
+		Assert.assertEquals(1497978000000L, measurement.getTime());
+		Assert.assertEquals(55, measurement.getAqi());
+		Assert.assertEquals("pm25", measurement.getMainPollutant());
+		Assert.assertEquals("Smoke", measurement.getComments());
+
+		Measurement forecast = readAirNowSnapshot.getForecast(
+			36, -119, 1498028400000L);
+
+		Assert.assertEquals("Fresno", forecast.getCity());
+		Assert.assertEquals(101, forecast.getAqi());
+		Assert.assertEquals("Hot", forecast.getComments());
+	}
+
+	@Test
+	public void testReadMissing() throws Exception {
+		File file = new File(temporaryFolder.getRoot(), "missing.snapshot");
+
+		Assert.assertNull(AirNowSnapshotSerializer.read(file.toPath()));
+	}
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class AdaptivePollingPolicyTest {
+
+	@Test
+	public void testGetDelay() {
+		AdaptivePollingPolicy adaptivePollingPolicy = new AdaptivePollingPolicy(
+			_HOUR, _MINUTE, 16 * _MINUTE, 5 * _MINUTE, 15 * _MINUTE);
+
+		Assert.assertEquals(_MINUTE, adaptivePollingPolicy.getDelay(_HOUR));
+		Assert.assertEquals(
+			_MINUTE, adaptivePollingPolicy.getDelay(_HOUR + 10 * _MINUTE));
+
+		adaptivePollingPolicy.onNoChange();
+		adaptivePollingPolicy.onNoChange();
+
+		Assert.assertEquals(
+			4 * _MINUTE,
+			adaptivePollingPolicy.getDelay(_HOUR + 20 * _MINUTE));
+
+		adaptivePollingPolicy.onNoChange();
+		adaptivePollingPolicy.onNoChange();
+		adaptivePollingPolicy.onNoChange();
+
+		Assert.assertEquals(
+			16 * _MINUTE,
+			adaptivePollingPolicy.getDelay(_HOUR + 20 * _MINUTE));
+		Assert.assertEquals(
+			5 * _MINUTE,
+			adaptivePollingPolicy.getDelay(_HOUR + 50 * _MINUTE));
+	}
+
+	@Test
+	public void testOnChange() {
+		AdaptivePollingPolicy adaptivePollingPolicy = new AdaptivePollingPolicy(
+			_HOUR, _MINUTE, 16 * _MINUTE, 5 * _MINUTE, 15 * _MINUTE);
+
+		long changeTime = _HOUR + 30 * _MINUTE;
+
+		adaptivePollingPolicy.onNoChange();
+		adaptivePollingPolicy.onChange(changeTime);
+
+		Assert.assertEquals(
+			changeTime, adaptivePollingPolicy.getLastChangeTime());
+		Assert.assertEquals(0, adaptivePollingPolicy.getUnchangedCount());
+		Assert.assertEquals(
+			changeTime + _HOUR,
+			adaptivePollingPolicy.getExpectedTime(changeTime + _MINUTE));
+		Assert.assertEquals(
+			_MINUTE, adaptivePollingPolicy.getDelay(changeTime + _HOUR));
+	}
+
+	private static final long _HOUR = TimeUnit.HOURS.toMillis(1);
+
+	private static final long _MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.buffer.Buffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class BufferUtilTest {
+
+	@Test
+	public void testParseDouble() {
+		String[] values = {
+			"0", "-0.0", "42.6525", "-73.7572", " 12.5 ", "+1.25", "1e3",
+			"123456789012345678901234", "0.1234567890123456789012345"
+		};
+
+		for (String value : values) {
+			Buffer buffer = Buffer.buffer("|" + value + "|");
+
+			Assert.assertEquals(
+				Double.valueOf(value.trim()),
+				Double.valueOf(
+					BufferUtil.parseDouble(buffer, 1, buffer.length() - 1)));
+		}
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testParseDoubleInvalid() {
+		Buffer buffer = Buffer.buffer("4x2");
+
+		BufferUtil.parseDouble(buffer, 0, buffer.length());
+	}
+
+	@Test
+	public void testParseInt() {
+		String[] values = {"0", "37", "-1", " 152 ", "2147483647", "-2147483648"};
+
+		for (String value : values) {
+			Buffer buffer = Buffer.buffer(value);
+
+			Assert.assertEquals(
+				Integer.parseInt(value.trim()),
+				BufferUtil.parseInt(buffer, 0, buffer.length()));
+		}
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testParseIntOverflow() {
+		Buffer buffer = Buffer.buffer("2147483648");
+
+		BufferUtil.parseInt(buffer, 0, buffer.length());
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.serviceproxy.ServiceException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class CircuitBreakerTest {
+
+	@Test
+	public void testExecute() throws Exception {
+		Vertx vertx = Vertx.vertx();
+
+		try {
+			CircuitBreaker circuitBreaker = new CircuitBreaker(
+				vertx, "Test", 2, 10000, 100);
+
+			AtomicReference<AsyncResult<String>> asyncResultReference =
+				new AtomicReference<>();
+
+			for (int i = 0; i < 2; i++) {
+				circuitBreaker.<String>execute(
+					handler -> handler.handle(Future.failedFuture("Failure")),
+					asyncResultReference::set);
+			}
+
+			Assert.assertTrue(circuitBreaker.isOpen());
+
+			circuitBreaker.<String>execute(
+				handler -> Assert.fail(), asyncResultReference::set);
+
+			AsyncResult<String> asyncResult = asyncResultReference.get();
+
+			ServiceException serviceException =
+				(ServiceException)asyncResult.cause();
+
+			Assert.assertEquals(
+				CircuitBreaker.CIRCUIT_OPEN_FAILURE_CODE,
+				serviceException.failureCode());
+			Assert.assertEquals(1, circuitBreaker.getRejectedCount());
+
+			Thread.sleep(150);
+
+			Assert.assertFalse(circuitBreaker.isOpen());
+
+			circuitBreaker.<String>execute(
+				handler -> handler.handle(Future.succeededFuture("probe")),
+				asyncResultReference::set);
+
+			asyncResult = asyncResultReference.get();
+
+			Assert.assertEquals("probe", asyncResult.result());
+			Assert.assertFalse(circuitBreaker.isOpen());
+		}
+		finally {
+			vertx.close();
+		}
+	}
+
+	@Test
+	public void testExecuteFailureClassification() throws Exception {
+		Vertx vertx = Vertx.vertx();
+
+		try {
+			CircuitBreaker circuitBreaker = new CircuitBreaker(
+				vertx, "Test", 2, 10000, 10000);
+
+			AtomicReference<AsyncResult<String>> asyncResultReference =
+				new AtomicReference<>();
+
+			for (int i = 0; i < 5; i++) {
+				circuitBreaker.<String>execute(
+					handler -> handler.handle(
+						ServiceException.fail(-429, "Quota exceeded")),
+					asyncResultReference::set);
+				circuitBreaker.<String>execute(
+					handler -> handler.handle(
+						ServiceException.fail(404, "Not found")),
+					asyncResultReference::set);
+			}
+
+			Assert.assertFalse(circuitBreaker.isOpen());
+
+			circuitBreaker.<String>execute(
+				handler -> handler.handle(
+					ServiceException.fail(500, "Server error")),
+				asyncResultReference::set);
+			circuitBreaker.<String>execute(
+				handler -> handler.handle(
+					ServiceException.fail(404, "Not found")),
+				asyncResultReference::set);
+
+			Assert.assertFalse(circuitBreaker.isOpen());
+
+			circuitBreaker.<String>execute(
+				handler -> handler.handle(
+					Future.failedFuture("Connection refused")),
+				asyncResultReference::set);
+
+			Assert.assertTrue(circuitBreaker.isOpen());
+		}
+		finally {
+			vertx.close();
+		}
+	}
+
+	@Test
+	public void testExecuteTimeout() throws Exception {
+		Vertx vertx = Vertx.vertx();
+
+		try {
+			CircuitBreaker circuitBreaker = new CircuitBreaker(
+				vertx, "Test", 1, 50, 10000);
+
+			CompletableFuture<AsyncResult<String>> completableFuture =
+				new CompletableFuture<>();
+
+			circuitBreaker.<String>execute(
+				handler -> {
+				},
+				completableFuture::complete);
+
+			AsyncResult<String> asyncResult = completableFuture.get(
+				10, TimeUnit.SECONDS);
+
+			ServiceException serviceException =
+				(ServiceException)asyncResult.cause();
+
+			Assert.assertEquals(
+				CircuitBreaker.CIRCUIT_TIMEOUT_FAILURE_CODE,
+				serviceException.failureCode());
+			Assert.assertTrue(circuitBreaker.isOpen());
+		}
+		finally {
+			vertx.close();
+		}
+	}
+
+}
\ No newline at end of file
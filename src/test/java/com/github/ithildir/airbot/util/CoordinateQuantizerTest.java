@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class CoordinateQuantizerTest {
+
+	@Test
+	public void testGetCell() {
+		CoordinateQuantizer coordinateQuantizer = new CoordinateQuantizer(
+			0.01);
+
+		Assert.assertEquals(
+			"4567,-12268", coordinateQuantizer.getCell(45.6712, -122.6788));
+		Assert.assertEquals(
+			coordinateQuantizer.getCell(45.6712, -122.6788),
+			coordinateQuantizer.getCell(45.6698, -122.6751));
+		Assert.assertNotEquals(
+			coordinateQuantizer.getCell(45.6712, -122.6788),
+			coordinateQuantizer.getCell(45.6712, -122.6748));
+		Assert.assertEquals(
+			"-3387,15121", coordinateQuantizer.getCell(-33.8688, 151.2093));
+		Assert.assertEquals("0,0", coordinateQuantizer.getCell(-0.004, 0.004));
+	}
+
+	@Test
+	public void testGetCellCenter() {
+		CoordinateQuantizer coordinateQuantizer = new CoordinateQuantizer(
+			0.01);
+
+		Assert.assertEquals(
+			"45.67,-122.68",
+			coordinateQuantizer.getCellCenter(45.6712, -122.6788));
+		Assert.assertEquals(
+			"-33.87,151.21",
+			coordinateQuantizer.getCellCenter(-33.8688, 151.2093));
+		Assert.assertEquals(
+			"45.7,-0.1", coordinateQuantizer.getCellCenter(45.7, -0.1));
+		Assert.assertEquals(
+			"0,0", coordinateQuantizer.getCellCenter(-0.004, 0.004));
+
+		coordinateQuantizer = new CoordinateQuantizer(0.25);
+
+		Assert.assertEquals(
+			"-12.25,33.5", coordinateQuantizer.getCellCenter(-12.3, 33.6));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNewCoordinateQuantizerWithInvalidPrecision() {
+		new CoordinateQuantizer(0);
+	}
+
+}
\ No newline at end of file
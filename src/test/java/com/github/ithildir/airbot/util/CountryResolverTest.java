@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import java.io.InputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class CountryResolverTest {
+
+	@Test
+	public void testGetCountry() throws Exception {
+		CountryResolver countryResolver;
+
+		ClassLoader classLoader = CountryResolverTest.class.getClassLoader();
+
+		try (InputStream inputStream = classLoader.getResourceAsStream(
+				"geo/countries.txt")) {
+
+			countryResolver = CountryResolver.read(inputStream, 0.25);
+		}
+
+		Assert.assertTrue(
+			countryResolver.getBoundaryCellCount() <
+				countryResolver.getCellCount());
+
+		Assert.assertEquals("US", countryResolver.getCountry(41.88, -87.63));
+		Assert.assertEquals("US", countryResolver.getCountry(40.71, -74.01));
+		Assert.assertEquals("US", countryResolver.getCountry(32.72, -117.16));
+		Assert.assertEquals("US", countryResolver.getCountry(61.22, -149.90));
+		Assert.assertEquals("US", countryResolver.getCountry(21.31, -157.86));
+		Assert.assertEquals("US", countryResolver.getCountry(18.47, -66.11));
+		Assert.assertEquals("US", countryResolver.getCountry(31.76, -106.49));
+		Assert.assertEquals("US", countryResolver.getCountry(25.90, -97.50));
+		Assert.assertEquals("US", countryResolver.getCountry(26.20, -98.23));
+		Assert.assertEquals("US", countryResolver.getCountry(27.51, -99.51));
+
+		Assert.assertNull(countryResolver.getCountry(43.65, -79.38));
+		Assert.assertNull(countryResolver.getCountry(49.28, -123.12));
+		Assert.assertNull(countryResolver.getCountry(48.43, -123.37));
+		Assert.assertNull(countryResolver.getCountry(32.51, -117.04));
+		Assert.assertNull(countryResolver.getCountry(31.69, -106.42));
+		Assert.assertNull(countryResolver.getCountry(25.87, -97.50));
+		Assert.assertNull(countryResolver.getCountry(26.08, -98.29));
+		Assert.assertNull(countryResolver.getCountry(27.48, -99.52));
+		Assert.assertNull(countryResolver.getCountry(45.46, 9.19));
+	}
+
+}
\ No newline at end of file
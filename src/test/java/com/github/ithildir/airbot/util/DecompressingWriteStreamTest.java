@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class DecompressingWriteStreamTest {
+
+	@Test
+	public void testWrite() throws IOException {
+		byte[] bytes = _RECORDS.getBytes(StandardCharsets.UTF_8);
+
+		_assertRecords(bytes, false);
+
+		ByteArrayOutputStream byteArrayOutputStream =
+			new ByteArrayOutputStream();
+
+		try (OutputStream outputStream = new DeflaterOutputStream(
+				byteArrayOutputStream)) {
+
+			outputStream.write(bytes);
+		}
+
+		_assertRecords(byteArrayOutputStream.toByteArray(), true);
+
+		byteArrayOutputStream.reset();
+
+		try (OutputStream outputStream = new GZIPOutputStream(
+				byteArrayOutputStream)) {
+
+			outputStream.write(bytes);
+		}
+
+		_assertRecords(byteArrayOutputStream.toByteArray(), true);
+	}
+
+	private void _assertRecords(byte[] bytes, boolean compressed) {
+		List<String> records = new ArrayList<>();
+
+		DecompressingWriteStream decompressingWriteStream =
+			new DecompressingWriteStream(
+				new RecordParserWriteStream(
+					"\n", record -> records.add(record.toString())));
+
+		for (byte b : bytes) {
+			decompressingWriteStream.write(Buffer.buffer(new byte[] {b}));
+		}
+
+		decompressingWriteStream.end();
+
+		Assert.assertEquals(
+			compressed, decompressingWriteStream.isCompressed());
+		Assert.assertEquals(
+			bytes.length, decompressingWriteStream.getCompressedBytes());
+		Assert.assertEquals(
+			_RECORDS.length(), decompressingWriteStream.getDecompressedBytes());
+		Assert.assertEquals(3, records.size());
+		Assert.assertEquals("10/18/17|Albany", records.get(0));
+		Assert.assertEquals("10/18/17|Los Angeles", records.get(2));
+	}
+
+	private static final String _RECORDS =
+		"10/18/17|Albany\n10/18/17|Buffalo\n10/18/17|Los Angeles";
+
+}
\ No newline at end of file
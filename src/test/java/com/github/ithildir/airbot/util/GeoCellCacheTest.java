@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class GeoCellCacheTest {
+
+	@Test
+	public void testGet() {
+		GeoCellCache<String> geoCellCache = new GeoCellCache<>(25, 2);
+
+		geoCellCache.put(57.64911, 10.40744, "Aalborg", 100, 0);
+
+		Assert.assertEquals("Aalborg", geoCellCache.get(57.65, 10.41, 50));
+		Assert.assertNull(geoCellCache.get(57.8, 10.41, 50));
+		Assert.assertNull(geoCellCache.get(57.65, 10.41, 100));
+
+		Assert.assertEquals(1, geoCellCache.getHitCount());
+		Assert.assertEquals(2, geoCellCache.getMissCount());
+		Assert.assertEquals(1, geoCellCache.getEvictionCount());
+
+		geoCellCache.put(10, 10, "foo", 100, 0);
+		geoCellCache.put(20, 20, "bar", 100, 0);
+		geoCellCache.put(30, 30, "baz", 100, 0);
+
+		Assert.assertEquals(2, geoCellCache.size());
+		Assert.assertEquals(2, geoCellCache.getEvictionCount());
+	}
+
+	@Test
+	public void testGetCell() {
+		long cell = (26 << 20) | (4 << 15) | (21 << 10) | (23 << 5) | 26;
+
+		Assert.assertEquals(
+			cell, GeoCellCache.getCell(57.64911, 10.40744, 25));
+	}
+
+	@Test
+	public void testGetEntry() {
+		GeoCellCache<String> geoCellCache = new GeoCellCache<>(25, 10, 50);
+
+		geoCellCache.put(10, 10, "foo", 100, 0);
+
+		GeoCellCache.Entry<String> entry = geoCellCache.getEntry(10, 10, 120);
+
+		Assert.assertEquals("foo", entry.getValue());
+		Assert.assertTrue(entry.isStale(120));
+		Assert.assertNull(geoCellCache.get(10, 10, 120));
+		Assert.assertNull(geoCellCache.getEntry(10, 10, 150));
+
+		Assert.assertEquals(2, geoCellCache.getStaleHitCount());
+		Assert.assertEquals(1, geoCellCache.getMissCount());
+	}
+
+}
\ No newline at end of file
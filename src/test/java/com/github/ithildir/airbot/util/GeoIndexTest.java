@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import com.github.ithildir.airbot.model.Location;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class GeoIndexTest {
+
+	@Test
+	public void testGetDistance() {
+		double distance = GeoIndex.getDistance(
+			40.7128, -74.0060, 34.0522, -118.2437);
+
+		Assert.assertEquals(3936, distance, 5);
+		Assert.assertEquals(0, GeoIndex.getDistance(10, 20, 10, 20), 0);
+	}
+
+	@Test
+	public void testGetNearest() {
+		Random random = new Random(42);
+
+		int size = 1000;
+
+		double[] latitudes = new double[size];
+		double[] longitudes = new double[size];
+
+		for (int i = 0; i < size; i++) {
+			latitudes[i] = _getRandomLatitude(random);
+			longitudes[i] = _getRandomLongitude(random);
+		}
+
+		GeoIndex geoIndex = new GeoIndex(latitudes, longitudes);
+
+		Assert.assertEquals(size, geoIndex.size());
+
+		for (int i = 0; i < 500; i++) {
+			double latitude = _getRandomLatitude(random);
+			double longitude = _getRandomLongitude(random);
+
+			int nearest = geoIndex.getNearest(latitude, longitude);
+
+			Location location = new Location(latitude, longitude, null);
+
+			Assert.assertEquals(
+				_getNearestDistance(location, latitudes, longitudes),
+				location.getDistance(
+					new Location(
+						latitudes[nearest], longitudes[nearest], null)),
+				0.000001);
+		}
+	}
+
+	@Test
+	public void testGetNearestEmpty() {
+		GeoIndex geoIndex = new GeoIndex(new double[0], new double[0]);
+
+		Assert.assertEquals(-1, geoIndex.getNearest(45.46, 9.19));
+	}
+
+	@Test
+	public void testGetNearestWithPredicate() {
+		GeoIndex geoIndex = new GeoIndex(
+			new double[] {45.46, 45.50, 48.86},
+			new double[] {9.19, 9.25, 2.35});
+
+		Assert.assertEquals(0, geoIndex.getNearest(45.46, 9.19));
+		Assert.assertEquals(
+			1, geoIndex.getNearest(45.46, 9.19, id -> id != 0));
+		Assert.assertEquals(
+			2, geoIndex.getNearest(45.46, 9.19, id -> id == 2));
+		Assert.assertEquals(-1, geoIndex.getNearest(45.46, 9.19, id -> false));
+	}
+
+	private static double _getNearestDistance(
+		Location location, double[] latitudes, double[] longitudes) {
+
+		double nearestDistance = Double.MAX_VALUE;
+
+		for (int i = 0; i < latitudes.length; i++) {
+			double distance = location.getDistance(
+				new Location(latitudes[i], longitudes[i], null));
+
+			nearestDistance = Math.min(nearestDistance, distance);
+		}
+
+		return nearestDistance;
+	}
+
+	private static double _getRandomLatitude(Random random) {
+		return random.nextDouble() * 180 - 90;
+	}
+
+	private static double _getRandomLongitude(Random random) {
+		return random.nextDouble() * 360 - 180;
+	}
+
+}
\ No newline at end of file
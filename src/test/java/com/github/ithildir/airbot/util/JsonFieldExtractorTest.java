@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class JsonFieldExtractorTest {
+
+	@Test
+	public void testExtract() throws IOException {
+		JsonFieldExtractor jsonFieldExtractor = new JsonFieldExtractor(
+			"data.aqi", "data.iaqi.*.v", "results.1.latLng", "status");
+
+		String json = _JSON.replace('\'', '"');
+
+		JsonObject jsonObject = jsonFieldExtractor.extract(
+			Buffer.buffer(json));
+
+		Assert.assertEquals("ok", jsonObject.getString("status"));
+
+		JsonObject dataJsonObject = jsonObject.getJsonObject("data");
+
+		Assert.assertEquals(2, dataJsonObject.size());
+		Assert.assertEquals(42, (int)dataJsonObject.getInteger("aqi"));
+
+		JsonObject iaqiJsonObject = dataJsonObject.getJsonObject("iaqi");
+
+		Assert.assertEquals(
+			new JsonObject(
+				"{\"o3\": {\"v\": 12.5}, \"pm25\": {\"v\": 42}}"),
+			iaqiJsonObject);
+
+		JsonArray resultsJsonArray = jsonObject.getJsonArray("results");
+
+		Assert.assertEquals(
+			new JsonArray("[null, {\"latLng\": {\"lat\": 1.5, \"lng\": 2.5}}]"),
+			resultsJsonArray);
+	}
+
+	private static final String _JSON =
+		"{'status': 'ok', 'data': {'aqi': 42, 'attributions': [{'name': " +
+			"'foo'}], 'iaqi': {'o3': {'v': 12.5}, 'pm25': {'v': 42, 'w': " +
+				"1}}}, 'results': [{'latLng': 1}, {'latLng': {'lat': 1.5, " +
+					"'lng': 2.5}, 'name': 'bar'}]}";
+
+}
\ No newline at end of file
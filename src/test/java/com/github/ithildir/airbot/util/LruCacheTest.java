@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class LruCacheTest {
+
+	@Test
+	public void testGetEntry() {
+		LruCache<String, String> lruCache = new LruCache<>(2);
+
+		lruCache.put("milan", "IT", 100, 0);
+		lruCache.put("nowhere", null, 50, 0);
+
+		LruCache.Entry<String> entry = lruCache.getEntry("nowhere", 10);
+
+		Assert.assertNotNull(entry);
+		Assert.assertNull(entry.getValue());
+
+		entry = lruCache.getEntry("milan", 10);
+
+		Assert.assertEquals("IT", entry.getValue());
+
+		Assert.assertNull(lruCache.getEntry("nowhere", 50));
+		Assert.assertEquals(1, lruCache.size());
+
+		lruCache.put("new york", "US", 100, 60);
+		lruCache.getEntry("milan", 60);
+		lruCache.put("paris", "FR", 100, 60);
+
+		Assert.assertNull(lruCache.getEntry("new york", 60));
+		Assert.assertNotNull(lruCache.getEntry("milan", 60));
+		Assert.assertEquals(2, lruCache.getEvictionCount());
+		Assert.assertEquals(4, lruCache.getHitCount());
+		Assert.assertEquals(2, lruCache.getMissCount());
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class MeasurementRingBufferTest {
+
+	@Test
+	public void testAdd() {
+		MeasurementRingBuffer measurementRingBuffer =
+			new MeasurementRingBuffer(3);
+
+		Assert.assertEquals(-1, measurementRingBuffer.getIndex(100));
+
+		for (int i = 1; i <= 5; i++) {
+			Assert.assertTrue(measurementRingBuffer.add(i * 10, i, 0));
+		}
+
+		Assert.assertFalse(measurementRingBuffer.add(50, 6, 0));
+		Assert.assertFalse(measurementRingBuffer.add(20, 7, 0));
+
+		Assert.assertEquals(3, measurementRingBuffer.size());
+		Assert.assertEquals(30, measurementRingBuffer.getTime(0));
+		Assert.assertEquals(5, measurementRingBuffer.getAqi(2));
+
+		Assert.assertEquals(-1, measurementRingBuffer.getIndex(29));
+		Assert.assertEquals(0, measurementRingBuffer.getIndex(30));
+		Assert.assertEquals(1, measurementRingBuffer.getIndex(49));
+		Assert.assertEquals(2, measurementRingBuffer.getIndex(100));
+	}
+
+}
\ No newline at end of file
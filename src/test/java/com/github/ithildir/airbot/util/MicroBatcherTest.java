@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class MicroBatcherTest {
+
+	@Test
+	public void testAdd() throws Exception {
+		Vertx vertx = Vertx.vertx();
+
+		try {
+			List<List<String>> batches = new ArrayList<>();
+
+			MicroBatcher<String, Integer> microBatcher = new MicroBatcher<>(
+				vertx, 2, 10000,
+				(keys, handler) -> {
+					batches.add(keys);
+
+					List<Integer> values = new ArrayList<>();
+
+					for (String key : keys) {
+						values.add(key.length());
+					}
+
+					handler.handle(Future.succeededFuture(values));
+				});
+
+			CompletableFuture<Integer> completableFuture1 =
+				new CompletableFuture<>();
+			CompletableFuture<Integer> completableFuture2 =
+				new CompletableFuture<>();
+
+			vertx.runOnContext(
+				v -> {
+					microBatcher.add(
+						"milan",
+						asyncResult -> completableFuture1.complete(
+							asyncResult.result()));
+
+					Assert.assertEquals(1, microBatcher.size());
+
+					microBatcher.add(
+						"new york",
+						asyncResult -> completableFuture2.complete(
+							asyncResult.result()));
+				});
+
+			Assert.assertEquals(
+				5, (int)completableFuture1.get(10, TimeUnit.SECONDS));
+			Assert.assertEquals(
+				8, (int)completableFuture2.get(10, TimeUnit.SECONDS));
+			Assert.assertEquals(1, batches.size());
+			Assert.assertEquals(1, microBatcher.getBatchCount());
+			Assert.assertEquals(2, microBatcher.getItemCount());
+		}
+		finally {
+			vertx.close();
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.serviceproxy.ServiceException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class QuotaManagerTest {
+
+	@Test
+	public void testAcquire() throws Exception {
+		Vertx vertx = Vertx.vertx();
+
+		try {
+			QuotaManager quotaManager = new QuotaManager(
+				vertx, "Test", 20, 1, 200);
+
+			List<String> names = new CopyOnWriteArrayList<>();
+
+			CompletableFuture<Void> completableFuture =
+				new CompletableFuture<>();
+
+			vertx.runOnContext(
+				v -> {
+					quotaManager.acquire(
+						QuotaManager.PRIORITY_BACKGROUND,
+						asyncResult -> names.add("first"));
+					quotaManager.acquire(
+						QuotaManager.PRIORITY_BACKGROUND,
+						asyncResult -> {
+							names.add("background");
+
+							completableFuture.complete(null);
+						});
+					quotaManager.acquire(
+						QuotaManager.PRIORITY_INTERACTIVE,
+						asyncResult -> names.add("interactive"));
+
+					for (int i = 0; i < 10; i++) {
+						quotaManager.acquire(
+							QuotaManager.PRIORITY_INTERACTIVE,
+							asyncResult -> {
+								if (asyncResult.failed()) {
+									ServiceException serviceException =
+										(ServiceException)asyncResult.cause();
+
+									names.add(
+										String.valueOf(
+											serviceException.failureCode()));
+								}
+							});
+					}
+				});
+
+			completableFuture.get(10, TimeUnit.SECONDS);
+
+			Assert.assertEquals("first", names.get(0));
+			Assert.assertTrue(
+				names.indexOf("interactive") < names.indexOf("background"));
+			Assert.assertTrue(
+				names.contains(
+					String.valueOf(
+						QuotaManager.QUOTA_EXHAUSTED_FAILURE_CODE)));
+			Assert.assertTrue(quotaManager.getRejectedCount() > 0);
+
+			JsonObject metricsJsonObject = quotaManager.getMetrics();
+
+			Assert.assertEquals(
+				quotaManager.getRejectedCount(),
+				(long)metricsJsonObject.getLong("rejectedCount"));
+			Assert.assertEquals(
+				quotaManager.getGrantedCount(),
+				(long)metricsJsonObject.getLong("grantedCount"));
+		}
+		finally {
+			vertx.close();
+		}
+	}
+
+}
\ No newline at end of file
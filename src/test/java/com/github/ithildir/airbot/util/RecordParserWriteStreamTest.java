@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class RecordParserWriteStreamTest {
+
+	@Test
+	public void testEndWithFailure() {
+		List<AsyncResult<Void>> asyncResults = new ArrayList<>();
+		List<Throwable> throwables = new ArrayList<>();
+
+		RecordParserWriteStream recordParserWriteStream =
+			new RecordParserWriteStream(
+				"\n",
+				record -> {
+					throw new IllegalArgumentException(record.toString());
+				});
+
+		recordParserWriteStream.exceptionHandler(throwables::add);
+		recordParserWriteStream.resultHandler(asyncResults::add);
+
+		recordParserWriteStream.write(Buffer.buffer("foo\nbar\n"));
+		recordParserWriteStream.end();
+
+		Assert.assertEquals(1, throwables.size());
+		Assert.assertEquals("foo", throwables.get(0).getMessage());
+		Assert.assertEquals(1, asyncResults.size());
+		Assert.assertTrue(asyncResults.get(0).failed());
+	}
+
+	@Test
+	public void testEndWithWorker() throws Exception {
+		Vertx vertx = Vertx.vertx();
+
+		try {
+			List<String> records = new ArrayList<>();
+
+			RecordParserWriteStream recordParserWriteStream =
+				new RecordParserWriteStream(
+					"\n", record -> records.add(record.toString()), vertx);
+
+			recordParserWriteStream.setChunkSize(4);
+			recordParserWriteStream.setWriteQueueMaxSize(4);
+
+			CompletableFuture<Void> completableFuture =
+				new CompletableFuture<>();
+
+			recordParserWriteStream.resultHandler(
+				asyncResult -> completableFuture.complete(null));
+
+			vertx.runOnContext(
+				v -> {
+					recordParserWriteStream.write(Buffer.buffer("foo\nba"));
+					recordParserWriteStream.write(Buffer.buffer("r\nbaz"));
+
+					Assert.assertTrue(recordParserWriteStream.writeQueueFull());
+
+					recordParserWriteStream.end();
+				});
+
+			completableFuture.get(10, TimeUnit.SECONDS);
+
+			Assert.assertEquals(3, records.size());
+			Assert.assertEquals("foo", records.get(0));
+			Assert.assertEquals("bar", records.get(1));
+			Assert.assertEquals("baz", records.get(2));
+		}
+		finally {
+			vertx.close();
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class RequestHedgerTest {
+
+	@Test
+	public void testExecute() throws Exception {
+		Vertx vertx = Vertx.vertx();
+
+		try {
+			RequestHedger requestHedger = new RequestHedger(
+				vertx, "Test", 0.95, 0.05, () -> true);
+
+			AtomicInteger attempts = new AtomicInteger();
+
+			CompletableFuture<String> completableFuture =
+				new CompletableFuture<>();
+
+			vertx.runOnContext(
+				v -> requestHedger.<String>execute(
+					handler -> {
+						if (attempts.incrementAndGet() > 1) {
+							handler.handle(Future.succeededFuture("hedge"));
+						}
+					},
+					asyncResult -> completableFuture.complete(
+						asyncResult.result())));
+
+			Assert.assertEquals(
+				"hedge", completableFuture.get(10, TimeUnit.SECONDS));
+			Assert.assertEquals(2, attempts.get());
+			Assert.assertEquals(1, requestHedger.getHedgeCount());
+			Assert.assertEquals(1, requestHedger.getHedgeWinCount());
+		}
+		finally {
+			vertx.close();
+		}
+	}
+
+	@Test
+	public void testExecuteHedgeCap() throws Exception {
+		Vertx vertx = Vertx.vertx();
+
+		try {
+			RequestHedger requestHedger = new RequestHedger(
+				vertx, "Test", 0.95, 0.1, () -> true);
+
+			AtomicInteger completedCount = new AtomicInteger();
+
+			CompletableFuture<Void> completableFuture =
+				new CompletableFuture<>();
+
+			vertx.runOnContext(
+				v -> {
+					for (int i = 0; i < 100; i++) {
+						AtomicInteger attempts = new AtomicInteger();
+
+						requestHedger.<String>execute(
+							handler -> {
+								if (attempts.incrementAndGet() > 1) {
+									handler.handle(
+										Future.succeededFuture("hedge"));
+								}
+							},
+							asyncResult -> {
+								if (completedCount.incrementAndGet() == 5) {
+									completableFuture.complete(null);
+								}
+							});
+					}
+				});
+
+			completableFuture.get(10, TimeUnit.SECONDS);
+
+			Thread.sleep(500);
+
+			Assert.assertEquals(5, completedCount.get());
+			Assert.assertEquals(5, requestHedger.getHedgeCount());
+			Assert.assertEquals(100, requestHedger.getRequestCount());
+		}
+		finally {
+			vertx.close();
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2017 Andrea Di Giorgi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.ithildir.airbot.util;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrea Di Giorgi
+ */
+public class SingleFlightTest {
+
+	@Test
+	public void testExecute() {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+		List<Handler<AsyncResult<String>>> operationHandlers =
+			new ArrayList<>();
+		List<String> results = new ArrayList<>();
+
+		for (int i = 0; i < 3; i++) {
+			singleFlight.execute(
+				"foo", operationHandlers::add,
+				asyncResult -> results.add(asyncResult.result()));
+		}
+
+		Assert.assertEquals(1, operationHandlers.size());
+		Assert.assertEquals(2, singleFlight.getCoalescedCount());
+		Assert.assertEquals(1, singleFlight.size());
+
+		Handler<AsyncResult<String>> operationHandler = operationHandlers.get(
+			0);
+
+		operationHandler.handle(Future.succeededFuture("bar"));
+
+		Assert.assertEquals(3, results.size());
+		Assert.assertEquals("bar", results.get(2));
+		Assert.assertEquals(0, singleFlight.size());
+	}
+
+}
\ No newline at end of file